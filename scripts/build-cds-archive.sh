@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Builds a Class Data Sharing archive for the AOT-processed jar.
+#
+# CDS only archives classes loaded from plain jars on the class path, so the jar is unpacked
+# into target/cds and started from there with its libraries in classpath.idx order. A training
+# run then starts the application context with external services switched off, exits once it is
+# ready (loan.startup.exit-on-ready) and dumps the loaded classes to target/cds/application.jsa.
+# Pass TRAINING_ARGS to train against real MySQL/Kafka instead. Start the result with
+# target/cds/run.sh [--spring.* overrides].
+#
+#   scripts/build-cds-archive.sh target/loans-service-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+JAR=$(realpath "${1:?usage: $0 <jar>}")
+OUT=${OUT:-$(dirname "${JAR}")/cds}
+TRAINING_ARGS=${TRAINING_ARGS:---spring.cloud.refresh.enabled=false \
+--eureka.client.enabled=false --spring.datasource.url=jdbc:mysql://localhost:3306/cds_training \
+--spring.jpa.hibernate.ddl-auto=none --spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect \
+--spring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false}
+
+rm -rf "${OUT}"
+mkdir -p "${OUT}"
+(cd "${OUT}" && jar -xf "${JAR}")
+
+# Same class path, in the same order, for the training run and every later start
+{
+  printf -- '-cp BOOT-INF/classes'
+  sed -n 's/^- "\(.*\)"$/:\1/p' "${OUT}/BOOT-INF/classpath.idx" | tr -d '\n'
+  printf '\n-Dspring.aot.enabled=true\n'
+} > "${OUT}/jvm.args"
+START_CLASS=$(sed -n 's/^Start-Class: *\([^[:space:]]*\).*/\1/p' "${OUT}/META-INF/MANIFEST.MF")
+
+echo "Training run for ${START_CLASS}"
+# shellcheck disable=SC2086
+(cd "${OUT}" && java @jvm.args -XX:ArchiveClassesAtExit=application.jsa "${START_CLASS}" \
+  --loan.startup.exit-on-ready=true ${TRAINING_ARGS} > training-run.log 2>&1) || {
+  echo "Training run failed, see ${OUT}/training-run.log" >&2
+  exit 1
+}
+
+cat > "${OUT}/run.sh" <<RUN
+#!/usr/bin/env bash
+cd "\$(dirname "\$0")"
+exec java @jvm.args -XX:SharedArchiveFile=application.jsa \${JAVA_OPTS:-} ${START_CLASS} "\$@"
+RUN
+chmod +x "${OUT}/run.sh"
+echo "CDS archive written to ${OUT}/application.jsa, start with ${OUT}/run.sh"
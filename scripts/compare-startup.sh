@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Compares startup time and resident memory of the plain jar, the AOT + CDS build and,
+# when given, the native image.
+#
+# Starts each variant RUNS times, takes the startup time Spring Boot logs ("Started ... in N
+# seconds") and the RSS once /actuator/health answers, and prints the averages. Needs the usual
+# MySQL, Kafka and config server (or equivalent --spring.* overrides in EXTRA_ARGS). Build the
+# plain jar first and keep a copy, since the cds profile rebuilds the same file:
+#
+#   mvn package -DskipTests && cp target/loans-service-0.0.1-SNAPSHOT.jar target/plain.jar
+#   mvn -Pcds package -DskipTests
+#   mvn -Pnative native:compile -DskipTests   # optional
+#   scripts/compare-startup.sh target/plain.jar target/cds [target/loans-service]
+set -euo pipefail
+
+PLAIN_JAR=${1:?usage: $0 <plain-jar> <cds-dir> [native-binary]}
+CDS_DIR=${2:?usage: $0 <plain-jar> <cds-dir> [native-binary]}
+NATIVE=${3:-}
+RUNS=${RUNS:-5}
+PORT=${PORT:-8084}
+EXTRA_ARGS=${EXTRA_ARGS:-}
+BASE="http://localhost:${PORT}"
+
+measure() {
+  local label=$1
+  shift
+  local total_seconds=0 total_rss=0
+  for run in $(seq "${RUNS}"); do
+    local log="target/startup-${label}-${run}.log"
+    # shellcheck disable=SC2086
+    "$@" --server.port="${PORT}" ${EXTRA_ARGS} > "${log}" 2>&1 &
+    local pid=$!
+    trap 'kill ${pid} 2>/dev/null || true' EXIT
+    until curl -sf "${BASE}/actuator/health" > /dev/null; do sleep 0.2; done
+    local seconds rss
+    seconds=$(sed -n 's/.*Started LoansServiceApplication in \([0-9.]*\) seconds.*/\1/p' "${log}" | head -1)
+    rss=$(ps -o rss= -p "${pid}" | tr -d ' ')
+    total_seconds=$(echo "${total_seconds} + ${seconds}" | bc)
+    total_rss=$((total_rss + rss))
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    trap - EXIT
+  done
+  printf '%-8s startup: %5.2f s   rss: %6d MB\n' "${label}" \
+    "$(echo "scale=2; ${total_seconds} / ${RUNS}" | bc)" $((total_rss / RUNS / 1024))
+}
+
+measure jar java -jar "${PLAIN_JAR}"
+measure cds "${CDS_DIR}/run.sh"
+if [[ -n "${NATIVE}" ]]; then
+  measure native "${NATIVE}"
+fi
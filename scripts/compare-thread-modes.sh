@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread request execution.
+#
+# Starts the packaged service once per mode, drives /loan/issue and /loan/user/{userId}
+# with `hey`, and prints requests/sec and p99 latency for each. Needs a Java 21+ runtime,
+# `hey` on the PATH, and the usual MySQL, Kafka and config server (or equivalent
+# --spring.* overrides in EXTRA_ARGS).
+#
+#   scripts/compare-thread-modes.sh target/loans-service-0.0.1-SNAPSHOT.jar
+set -euo pipefail
+
+JAR=${1:?usage: $0 <jar>}
+PORT=${PORT:-8084}
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-200}
+USER_ID=${USER_ID:-1}
+EXTRA_ARGS=${EXTRA_ARGS:-}
+BASE="http://localhost:${PORT}"
+ISSUE_BODY='{"userId":'"${USER_ID}"',"loanAmount":10000,"loanType":"PERSONAL","tenureMonths":12}'
+
+summarize() {
+  awk '/Requests\/sec/ {print "  throughput: " $2 " req/s"} /99% in/ {print "  p99:        " $3 " s"}'
+}
+
+for virtual in false true; do
+  echo "== loan.execution.virtual-threads=${virtual}"
+  # shellcheck disable=SC2086
+  java -jar "${JAR}" --server.port="${PORT}" --loan.execution.virtual-threads="${virtual}" ${EXTRA_ARGS} \
+    > "target/thread-mode-${virtual}.log" 2>&1 &
+  pid=$!
+  trap 'kill ${pid} 2>/dev/null || true' EXIT
+  until curl -sf "${BASE}/actuator/health" > /dev/null; do sleep 1; done
+
+  echo " POST /loan/issue"
+  hey -z "${DURATION}" -c "${CONCURRENCY}" -m POST -T application/json -d "${ISSUE_BODY}" "${BASE}/loan/issue" | summarize
+  echo " GET /loan/user/${USER_ID}"
+  hey -z "${DURATION}" -c "${CONCURRENCY}" "${BASE}/loan/user/${USER_ID}" | summarize
+
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+  trap - EXIT
+done
@@ -0,0 +1,64 @@
+package com.bank.app.loans_service.kafka;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.service.Impl.LoanEventProducer;
+import com.bank.core.entity.LoanNotification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize cost of a loan notification with the JSON serializer the service started with
+ * against the schema-id prefixed Avro encoding. Encoded sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanEventSerializationBenchmark {
+
+    private static final String TOPIC = "loan-service-topic";
+
+    private JsonSerializer<Object> json;
+    private AvroLoanEventSerializer avro;
+    private LoanNotification notification;
+
+    @Setup
+    public void setUp() {
+        json = new JsonSerializer<>();
+        avro = new AvroLoanEventSerializer(new InMemorySchemaRegistry());
+        Loan loan = Loan.builder()
+                .id(42L)
+                .userId(7L)
+                .loanAmount(new BigDecimal("250000.00"))
+                .loanNumber("0001234567890123456")
+                .loanType(LoanType.HOME)
+                .interestRate(new BigDecimal("8.5"))
+                .tenureMonths(240)
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2045, 1, 1))
+                .remainingBalance(new BigDecimal("520683.17"))
+                .loanStatus(LoanStatus.ACTIVE)
+                .build();
+        notification = LoanEventProducer.toNotification(loan);
+        System.out.printf("%nBytes per event: json=%d avro=%d%n",
+                json.serialize(TOPIC, notification).length, avro.serialize(TOPIC, notification).length);
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return json.serialize(TOPIC, notification);
+    }
+
+    @Benchmark
+    public byte[] avro() {
+        return avro.serialize(TOPIC, notification);
+    }
+}
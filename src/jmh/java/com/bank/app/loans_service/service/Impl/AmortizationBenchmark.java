@@ -0,0 +1,71 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 20-year reducing-balance schedule computed by the fixed-scale engine, served from its cache,
+ * and computed by a straightforward BigDecimal implementation for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmortizationBenchmark {
+
+    private static final BigDecimal PRINCIPAL = new BigDecimal("250000.00");
+    private static final BigDecimal RATE = new BigDecimal("5.5");
+    private static final int TENURE = 240;
+
+    private AmortizationEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = new AmortizationEngine(new SimpleMeterRegistry(), 10_000);
+        engine.schedule(PRINCIPAL, RATE, TENURE, AmortizationMethod.REDUCING_BALANCE);
+    }
+
+    @Benchmark
+    public AmortizationSchedule fixedScale() {
+        return AmortizationEngine.compute(new AmortizationEngine.ScheduleKey(25_000_000L, 55_000L, TENURE, AmortizationMethod.REDUCING_BALANCE));
+    }
+
+    @Benchmark
+    public AmortizationSchedule cached() {
+        return engine.schedule(PRINCIPAL, RATE, TENURE, AmortizationMethod.REDUCING_BALANCE);
+    }
+
+    @Benchmark
+    public BigDecimal fixedScaleTotalOnly() {
+        return engine.totalPayable(PRINCIPAL, new BigDecimal("5.4"), TENURE, AmortizationMethod.REDUCING_BALANCE);
+    }
+
+    @Benchmark
+    public List<BigDecimal[]> naiveBigDecimal() {
+        MathContext mc = MathContext.DECIMAL64;
+        BigDecimal monthlyRate = RATE.divide(BigDecimal.valueOf(1200), mc);
+        BigDecimal factor = BigDecimal.ONE.add(monthlyRate).pow(TENURE, mc);
+        BigDecimal emi = PRINCIPAL.multiply(monthlyRate).multiply(factor)
+                .divide(factor.subtract(BigDecimal.ONE), 2, RoundingMode.HALF_UP);
+        BigDecimal balance = PRINCIPAL;
+        List<BigDecimal[]> installments = new ArrayList<>(TENURE);
+        for (int month = 1; month <= TENURE; month++) {
+            BigDecimal interest = balance.multiply(monthlyRate).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal principal = month == TENURE ? balance : emi.subtract(interest).min(balance);
+            balance = balance.subtract(principal);
+            installments.add(new BigDecimal[]{principal.add(interest), principal, interest, balance});
+        }
+        return installments;
+    }
+}
@@ -0,0 +1,103 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.core.entity.LoanNotification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request hot paths of the loan write flow: pricing a new loan, generating its number,
+ * mapping it to the Kafka notification, serializing it and merging an update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanHotPathBenchmark {
+
+    private static final String TOPIC = "loan-service-topic";
+
+    private Loan loan;
+    private Loan patch;
+    private LoanNotification notification;
+    private ObjectMapper objectMapper;
+    private JsonSerializer<Object> kafkaSerializer;
+    private SnowflakeLoanNumberGenerator loanNumberGenerator;
+    private AmortizationEngine amortizationEngine;
+
+    @Setup
+    public void setUp() {
+        loan = Loan.builder()
+                .id(42L)
+                .userId(7L)
+                .loanAmount(new BigDecimal("250000.00"))
+                .loanNumber("LN123456789")
+                .loanType(LoanType.HOME)
+                .interestRate(new BigDecimal("5.5"))
+                .tenureMonths(240)
+                .startDate(LocalDate.of(2024, 1, 15))
+                .endDate(LocalDate.of(2044, 1, 15))
+                .remainingBalance(new BigDecimal("525000.00"))
+                .loanStatus(LoanStatus.ACTIVE)
+                .version(3L)
+                .build();
+        patch = Loan.builder().id(42L).interestRate(new BigDecimal("5.1")).loanStatus(LoanStatus.ACTIVE).build();
+        notification = LoanEventProducer.toNotification(loan);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        kafkaSerializer = new JsonSerializer<>(objectMapper);
+        loanNumberGenerator = new SnowflakeLoanNumberGenerator(1);
+        amortizationEngine = new AmortizationEngine(new SimpleMeterRegistry(), 10_000);
+    }
+
+    @Benchmark
+    public Loan applyTerms() {
+        Loan newLoan = Loan.builder()
+                .loanAmount(loan.getLoanAmount())
+                .loanType(loan.getLoanType())
+                .tenureMonths(loan.getTenureMonths())
+                .build();
+        LoanServiceImpl.applyTerms(newLoan, amortizationEngine);
+        return newLoan;
+    }
+
+    @Benchmark
+    public String generateLoanNumber() {
+        return loanNumberGenerator.nextLoanNumber();
+    }
+
+    @Benchmark
+    public LoanNotification copyToNotification() {
+        return LoanEventProducer.toNotification(loan);
+    }
+
+    @Benchmark
+    public byte[] serializeLoan() throws Exception {
+        return objectMapper.writeValueAsBytes(loan);
+    }
+
+    @Benchmark
+    public byte[] serializeKafkaPayload() {
+        return kafkaSerializer.serialize(TOPIC, notification);
+    }
+
+    @Benchmark
+    public Loan mergeNonNull() {
+        Loan target = loan.toBuilder().build();
+        LoanServiceImpl.mergeNonNull(patch, target);
+        return target;
+    }
+}
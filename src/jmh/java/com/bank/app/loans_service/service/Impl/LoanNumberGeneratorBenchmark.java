@@ -0,0 +1,39 @@
+package com.bank.app.loans_service.service.Impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loan number throughput under contention: the snowflake generator against the original
+ * allocate-a-Random-per-call scheme, both driven from four threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoanNumberGeneratorBenchmark {
+
+    private SnowflakeLoanNumberGenerator snowflake;
+
+    @Setup
+    public void setUp() {
+        snowflake = new SnowflakeLoanNumberGenerator(1);
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextLoanNumber();
+    }
+
+    @Benchmark
+    public String randomPerCall() {
+        Random random = new Random();
+        int randomNumber = 100000000 + random.nextInt(900000000);
+        return "LN" + randomNumber;
+    }
+}
@@ -1,9 +1,14 @@
 package com.bank.app.loans_service;
 
+import com.bank.app.loans_service.config.LoanRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(LoanRuntimeHints.class)
 public class LoansServiceApplication {
 
 	public static void main(String[] args) {
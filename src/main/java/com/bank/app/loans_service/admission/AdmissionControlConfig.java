@@ -0,0 +1,32 @@
+package com.bank.app.loans_service.admission;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the {@link AdmissionControlInterceptor} in front of the loan endpoints when
+ * {@code loan.admission.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loan.admission.enabled", havingValue = "true")
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    @Autowired
+    public AdmissionControlConfig(AdmissionControlInterceptor admissionControlInterceptor) {
+        this.admissionControlInterceptor = admissionControlInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Peer cache invalidations must not be throttled like client traffic, and a change feed
+        // stream would hold its concurrency permit for as long as it stays connected
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns("/loan/**")
+                .excludePathPatterns("/loan/internal/**", "/loan/feed");
+    }
+}
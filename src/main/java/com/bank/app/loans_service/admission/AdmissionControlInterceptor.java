@@ -0,0 +1,170 @@
+package com.bank.app.loans_service.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns away excess requests before they reach a controller, and so before they take a Tomcat
+ * worker for the length of a database call or wait for a pooled connection.
+ * <ul>
+ *     <li>Writes are rate limited per client, identified by the {@code loan.admission.client-header}
+ *     header or else the remote address. A client over its rate gets 429 with the seconds until
+ *     its next permit in {@code Retry-After}.</li>
+ *     <li>Every endpoint (method and path pattern) has its own {@link GradientConcurrencyLimit}.
+ *     A request beyond it gets 503 with {@code Retry-After: 1}. A burst of slow issues then lowers
+ *     the issue limit without touching the limit of the user reads.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "loan.admission.enabled", havingValue = "true")
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name());
+
+    private final MeterRegistry meterRegistry;
+    private final ClientRateLimiter rateLimiter;
+    private final String clientHeader;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AdmissionControlInterceptor(MeterRegistry meterRegistry,
+                                       @Value("${loan.admission.client-header:X-Api-Key}") String clientHeader,
+                                       @Value("${loan.admission.rate-limit.permits-per-second:20}") double permitsPerSecond,
+                                       @Value("${loan.admission.rate-limit.burst:40}") double burst,
+                                       @Value("${loan.admission.rate-limit.max-clients:100000}") long maxClients,
+                                       @Value("${loan.admission.rate-limit.idle-timeout:PT10M}") Duration idleTimeout,
+                                       @Value("${loan.admission.concurrency.initial-limit:20}") int initialLimit,
+                                       @Value("${loan.admission.concurrency.min-limit:4}") int minLimit,
+                                       @Value("${loan.admission.concurrency.max-limit:200}") int maxLimit,
+                                       @Value("${loan.admission.concurrency.tolerance:1.5}") double tolerance) {
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = new ClientRateLimiter(permitsPerSecond, burst, maxClients, idleTimeout);
+        this.clientHeader = clientHeader;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        Gauge.builder("loan.admission.clients", rateLimiter, ClientRateLimiter::trackedClients)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Asynchronous responses are dispatched again and keep the permit of the first dispatch
+        if (!(handler instanceof HandlerMethod) || request.getAttribute(PERMIT) != null) {
+            return true;
+        }
+        Endpoint endpoint = endpointOf(request);
+
+        if (!READ_METHODS.contains(request.getMethod())) {
+            String client = clientOf(request);
+            long waitNanos = rateLimiter.tryAcquire(client);
+            if (waitNanos > 0) {
+                logger.debug("Rate limited client {} on {}", client, endpoint.name);
+                endpoint.rateLimited.increment();
+                return reject(response, HttpStatus.TOO_MANY_REQUESTS, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+            }
+        }
+
+        if (!endpoint.limit.tryAcquire()) {
+            logger.debug("Concurrency limit {} reached on {}", endpoint.limit.getLimit(), endpoint.name);
+            endpoint.overloaded.increment();
+            return reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+        }
+        request.setAttribute(PERMIT, new Permit(endpoint, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        Object permit = request.getAttribute(PERMIT);
+        if (permit instanceof Permit held) {
+            request.removeAttribute(PERMIT);
+            boolean failed = ex != null || response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+            held.endpoint.limit.release(System.nanoTime() - held.startedAt, failed);
+        }
+    }
+
+    private Endpoint endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String name = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+
+    private static boolean reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return false;
+    }
+
+    private record Permit(Endpoint endpoint, long startedAt) {
+    }
+
+    private final class Endpoint {
+
+        private final String name;
+        private final GradientConcurrencyLimit limit;
+        private final Counter rateLimited;
+        private final Counter overloaded;
+
+        private Endpoint(String name) {
+            this.name = name;
+            this.limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance);
+            Gauge.builder("loan.admission.limit", limit, GradientConcurrencyLimit::getLimit)
+                    .description("Current concurrency limit of the endpoint")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            Gauge.builder("loan.admission.inflight", limit, GradientConcurrencyLimit::getInflight)
+                    .description("Requests being handled by the endpoint")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            this.rateLimited = rejected(name, "rate_limited");
+            this.overloaded = rejected(name, "overloaded");
+        }
+
+        private Counter rejected(String name, String reason) {
+            return Counter.builder("loan.admission.rejected")
+                    .description("Requests turned away before reaching the controller")
+                    .tag("endpoint", name)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
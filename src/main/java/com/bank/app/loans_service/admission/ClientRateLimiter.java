@@ -0,0 +1,38 @@
+package com.bank.app.loans_service.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * One {@link TokenBucket} per client. Buckets of clients that stop sending are dropped after
+ * {@code idleTimeout}, and at most {@code maximumClients} are kept.
+ */
+class ClientRateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final double permitsPerSecond;
+    private final double burst;
+
+    ClientRateLimiter(double permitsPerSecond, double burst, long maximumClients, Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * @param client The client identity.
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the client may send again.
+     */
+    long tryAcquire(String client) {
+        return buckets.get(client, key -> new TokenBucket(burst, permitsPerSecond)).tryTake();
+    }
+
+    long trackedClients() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.app.loans_service.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows observed latency. Each completed request updates a short-term
+ * and a long-term average of its latency. While the short-term average stays within
+ * {@code tolerance} times the long-term one, the limit grows by about the square root of itself,
+ * probing for capacity. When requests slow down the limit shrinks in proportion, down to half
+ * per update. Failed requests cut it by a tenth. The limit stays between {@code minLimit} and
+ * {@code maxLimit}, and it does not grow while fewer than half of the permits are in use.
+ */
+class GradientConcurrencyLimit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+    private long samples;
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return Whether a permit was taken; it must be given back with {@link #release}.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a permit and adjust the limit.
+     * @param rttNanos How long the request held the permit.
+     * @param failed Whether the request failed, which always lowers the limit.
+     */
+    void release(long rttNanos, boolean failed) {
+        int inUse = inflight.getAndDecrement();
+        update(rttNanos, inUse, failed);
+    }
+
+    private synchronized void update(double rtt, int inUse, boolean failed) {
+        if (failed) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        samples++;
+        shortRtt = samples == 1 ? rtt : shortRtt + (rtt - shortRtt) / Math.min(samples, SHORT_WINDOW);
+        longRtt = samples == 1 ? rtt : longRtt + (rtt - longRtt) / Math.min(samples, LONG_WINDOW);
+        if (longRtt / shortRtt > 2) {
+            // Latency fell well below the long-term average, so let that average catch up
+            longRtt *= 0.95;
+        }
+        if (inUse < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.app.loans_service.cache;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of loans keyed by user ID. Entries expire after
+ * {@code loan.cache.by-user.ttl} and are evicted as soon as a write to one of the user's loans commits.
+ * Hit, miss and eviction statistics are exported as {@code cache.*} meters named {@code loansByUser}.
+ * <p>
+ * Misses are loaded by the calling thread outside of the cache's internal locks, so a database
+ * round trip never pins a virtual thread's carrier; concurrent misses for the same user wait on
+ * the first caller's load.
+ */
+@Component
+public class LoansByUserCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoansByUserCache.class);
+
+    private final AsyncCache<Long, List<Loan>> cache;
+    private final ObjectProvider<PeerCacheInvalidator> peerInvalidator;
+
+    @Autowired
+    public LoansByUserCache(MeterRegistry meterRegistry,
+                            ObjectProvider<PeerCacheInvalidator> peerInvalidator,
+                            @Value("${loan.cache.by-user.maximum-size:50000}") long maximumSize,
+                            @Value("${loan.cache.by-user.ttl:PT5M}") Duration ttl) {
+        this.peerInvalidator = peerInvalidator;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        new CaffeineCacheMetrics<>(cache.synchronous(), "loansByUser", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Return the cached loans of a user, loading them on a miss.
+     * @param userId The ID of the user.
+     * @param loader Loads the user's loans from the database.
+     * @return An unmodifiable list of the user's loans.
+     */
+    public List<Loan> get(Long userId, Function<Long, List<Loan>> loader) {
+        CompletableFuture<List<Loan>> pending = new CompletableFuture<>();
+        CompletableFuture<List<Loan>> entry = cache.get(userId, (key, executor) -> pending);
+        if (entry == pending) {
+            try {
+                pending.complete(List.copyOf(loader.apply(userId)));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return entry.join();
+    }
+
+    /**
+     * Evict a user's entry from this instance only.
+     * @param userId The ID of the user.
+     */
+    public void evictLocal(Long userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    /**
+     * Evict the owners of a loan once the write to it has committed. Both the current and the
+     * previous owner are evicted in case the update moved the loan to another user.
+     * @param event The loan change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        Long userId = event.getLoan().getUserId();
+        Long previousUserId = event.getPrevious() == null ? null : event.getPrevious().getUserId();
+        evict(userId);
+        if (previousUserId != null && !Objects.equals(userId, previousUserId)) {
+            evict(previousUserId);
+        }
+    }
+
+    private void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        logger.debug("Evicting cached loans for userId: {}", userId);
+        cache.synchronous().invalidate(userId);
+        peerInvalidator.ifAvailable(invalidator -> invalidator.broadcast(userId));
+    }
+}
@@ -0,0 +1,89 @@
+package com.bank.app.loans_service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second cache tier: forwards local evictions to every other replica registered in Eureka so
+ * their {@link LoansByUserCache} entries do not outlive a write made here. Delivery is best
+ * effort; a replica that misses a message serves stale data for at most the cache TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.cache.peer-invalidation.enabled", havingValue = "true")
+public class PeerCacheInvalidator implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerCacheInvalidator.class);
+
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final RestTemplate restTemplate;
+    private final String serviceId;
+    private final ExecutorService executor;
+
+    @Autowired
+    public PeerCacheInvalidator(DiscoveryClient discoveryClient,
+                                ObjectProvider<Registration> registration,
+                                RestTemplateBuilder restTemplateBuilder,
+                                @Value("${spring.application.name}") String serviceId,
+                                @Value("${loan.cache.peer-invalidation.timeout:PT1S}") Duration timeout,
+                                @Value("${loan.cache.peer-invalidation.queue-size:10000}") int queueSize) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(timeout)
+                .setReadTimeout(timeout)
+                .build();
+        this.serviceId = serviceId;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize));
+    }
+
+    /**
+     * Ask every other replica to evict a user's cached loans.
+     * @param userId The ID of the user.
+     */
+    public void broadcast(Long userId) {
+        try {
+            executor.execute(() -> notifyPeers(userId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Peer invalidation queue full, dropping eviction of userId: {}", userId);
+        }
+    }
+
+    private void notifyPeers(Long userId) {
+        Registration self = registration.getIfAvailable();
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            if (self != null && Objects.equals(self.getInstanceId(), instance.getInstanceId())) {
+                continue;
+            }
+            try {
+                restTemplate.delete(instance.getUri() + "/loan/internal/cache/users/{userId}", userId);
+            } catch (Exception e) {
+                logger.warn("Could not invalidate userId: {} on {}", userId, instance.getUri(), e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
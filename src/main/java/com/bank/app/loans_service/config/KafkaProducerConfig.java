@@ -1,10 +1,17 @@
 package com.bank.app.loans_service.config;
 
+import com.bank.app.loans_service.kafka.AvroLoanEventSerializer;
+import com.bank.app.loans_service.kafka.InMemorySchemaRegistry;
+import com.bank.app.loans_service.kafka.KafkaProducerProfile;
+import com.bank.app.loans_service.kafka.SerializationFormat;
+import com.bank.app.loans_service.kafka.TopicRoutingSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -13,6 +20,8 @@ import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Configuration
@@ -20,6 +29,28 @@ public class KafkaProducerConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerConfig.class);
 
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${loan.kafka.producer.profile:high-throughput}")
+    private String profile;
+
+    @Value("${loan.kafka.producer.linger-ms:}")
+    private String lingerMs;
+
+    @Value("${loan.kafka.producer.batch-size:}")
+    private String batchSize;
+
+    @Value("${loan.kafka.producer.compression-type:}")
+    private String compressionType;
+
+    @Value("${loan.kafka.producer.acks:}")
+    private String acks;
+
+    // Bounds how long send() blocks the outbox relay for metadata or buffer space while the broker is down
+    @Value("${loan.kafka.producer.max-block-ms:5000}")
+    private String maxBlockMs;
+
     @Bean
     public NewTopic createTopic() {
         logger.info("Creating new Kafka topic: loan-service-topic");
@@ -29,23 +60,65 @@ public class KafkaProducerConfig {
     @Bean
     public Map<String, Object> producerConfig() {
         logger.info("Configuring Kafka producer properties");
-        Map<String, Object> props = new HashMap<>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        KafkaProducerProfile producerProfile = KafkaProducerProfile.valueOf(profile.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        Map<String, Object> props = new HashMap<>(producerProfile.settings());
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        putIfSet(props, ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        putIfSet(props, ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        putIfSet(props, ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        putIfSet(props, ProducerConfig.ACKS_CONFIG, acks);
+        putIfSet(props, ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
         logger.info("Kafka producer properties configured: {}", props);
         return props;
     }
 
+    /**
+     * Value serializer honouring {@code loan.kafka.serialization.default-format} and the per-topic
+     * overrides in {@code loan.kafka.serialization.topic-formats} ({@code topic:format,...}).
+     */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public Serializer<Object> loanValueSerializer(InMemorySchemaRegistry schemaRegistry,
+                                                  @Value("${loan.kafka.serialization.default-format:json}") String defaultFormat,
+                                                  @Value("${loan.kafka.serialization.topic-formats:}") List<String> topicFormats) {
+        Map<String, Serializer<Object>> serializersByTopic = new HashMap<>();
+        for (String topicFormat : topicFormats) {
+            if (topicFormat.isBlank()) {
+                continue;
+            }
+            int separator = topicFormat.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected topic:format but got: " + topicFormat);
+            }
+            String topic = topicFormat.substring(0, separator).trim();
+            serializersByTopic.put(topic, newValueSerializer(topicFormat.substring(separator + 1), schemaRegistry));
+        }
+        logger.info("Kafka value serialization: default {}, per topic {}", defaultFormat, topicFormats);
+        return new TopicRoutingSerializer(serializersByTopic, newValueSerializer(defaultFormat, schemaRegistry));
+    }
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(Serializer<Object> loanValueSerializer) {
         logger.info("Creating Kafka ProducerFactory");
-        return new DefaultKafkaProducerFactory<>(producerConfig());
+        return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), loanValueSerializer);
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
         logger.info("Creating KafkaTemplate");
-        return new KafkaTemplate<>(producerFactory());
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    private static void putIfSet(Map<String, Object> props, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            props.put(key, value.trim());
+        }
+    }
+
+    private static Serializer<Object> newValueSerializer(String format, InMemorySchemaRegistry schemaRegistry) {
+        return switch (SerializationFormat.valueOf(format.trim().toUpperCase(Locale.ROOT))) {
+            case JSON -> new JsonSerializer<>();
+            case AVRO -> new AvroLoanEventSerializer(schemaRegistry);
+        };
     }
 }
\ No newline at end of file
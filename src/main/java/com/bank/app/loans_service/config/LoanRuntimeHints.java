@@ -0,0 +1,49 @@
+package com.bank.app.loans_service.config;
+
+import com.bank.app.loans_service.dto.LoanChange;
+import com.bank.app.loans_service.dto.LoanSnapshot;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanDeltaNotification;
+import com.bank.app.loans_service.kafka.AvroLoanEventSerializer;
+import com.bank.app.loans_service.metrics.SampledInfoTurboFilter;
+import com.bank.core.entity.LoanNotification;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Reflection and resource hints for the AOT-processed and native builds, covering what Spring
+ * cannot infer from bean definitions: Jackson-bound event payloads read from the outbox or written
+ * to the change feed, the Kafka value serializers, classes instantiated by name from
+ * {@code logback-spring.xml}, the virtual thread executor looked up reflectively, and the
+ * springdoc model and Swagger UI assets.
+ */
+public class LoanRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String SWAGGER_UI_RESOURCES = "META-INF/resources/webjars/swagger-ui/**";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(),
+                Loan.class, LoanNotification.class, LoanDeltaNotification.class, LoanChange.class,
+                LoanSnapshot.class, OpenAPI.class);
+
+        hints.reflection().registerType(JsonSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(AvroLoanEventSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(SampledInfoTurboFilter.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(Executors.class, type -> type.withMethod("newVirtualThreadPerTaskExecutor",
+                List.<TypeReference>of(), ExecutableMode.INVOKE));
+
+        hints.resources().registerPattern(SWAGGER_UI_RESOURCES);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bank.app.loans_service.config;
+
+import com.bank.app.loans_service.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in ({@code loan.datasource.replicas.enabled=true}) routing of read-only transactions to the
+ * replicas listed in {@code loan.datasource.replicas.urls}. The primary keeps its
+ * {@code spring.datasource.*} settings; replicas reuse its credentials unless
+ * {@code loan.datasource.replicas.username} and {@code password} are set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "loan.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             @Value("${loan.datasource.replicas.urls}") List<String> urls,
+                                                             @Value("${loan.datasource.replicas.username:}") String username,
+                                                             @Value("${loan.datasource.replicas.password:}") String password,
+                                                             @Value("${loan.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                                             @Value("${loan.datasource.replicas.validation-timeout-seconds:1}") int validationTimeoutSeconds) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(Math.max(250, validationTimeoutSeconds * 1000L));
+            // Let the application start while a replica is down; the health check keeps it out of rotation
+            replica.setInitializationFailTimeout(-1);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        logger.info("Routing read-only transactions to {} replicas", replicas.size());
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, validationTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,36 @@
+package com.bank.app.loans_service.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exits the JVM as soon as the application is ready when {@code loan.startup.exit-on-ready=true}.
+ * Used by the CDS training run, which dumps the classes loaded during startup on exit.
+ * <p>
+ * The flag is read at runtime rather than through a condition because AOT processing fixes the
+ * set of beans at build time.
+ */
+@Component
+public class TrainingRunExit implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrainingRunExit.class);
+
+    private final boolean exitOnReady;
+
+    public TrainingRunExit(@Value("${loan.startup.exit-on-ready:false}") boolean exitOnReady) {
+        this.exitOnReady = exitOnReady;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (exitOnReady) {
+            logger.info("Training run finished, exiting");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
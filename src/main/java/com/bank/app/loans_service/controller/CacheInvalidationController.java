@@ -0,0 +1,45 @@
+package com.bank.app.loans_service.controller;
+
+import com.bank.app.loans_service.cache.LoansByUserCache;
+import io.swagger.v3.oas.annotations.Hidden;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Receives cache evictions broadcast by other replicas. Only exposed when peer invalidation is
+ * enabled, so the endpoint does not exist on instances that never receive evictions.
+ */
+@Hidden
+@RestController
+@ConditionalOnProperty(name = "loan.cache.peer-invalidation.enabled", havingValue = "true")
+@RequestMapping("/loan/internal/cache")
+public class CacheInvalidationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationController.class);
+
+    private final LoansByUserCache loansByUserCache;
+
+    @Autowired
+    public CacheInvalidationController(LoansByUserCache loansByUserCache) {
+        this.loansByUserCache = loansByUserCache;
+    }
+
+    /**
+     * Evict a user's cached loans on this instance.
+     * @param userId The ID of the user.
+     * @return An empty response.
+     */
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<Void> evictUser(@PathVariable Long userId) {
+        logger.debug("Peer eviction of cached loans for userId: {}", userId);
+        loansByUserCache.evictLocal(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,19 +1,49 @@
 package com.bank.app.loans_service.controller;
 
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.LoanBatchItemResult;
+import com.bank.app.loans_service.dto.LoanPage;
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
 import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.exception.IllegalStatusTransitionException;
 import com.bank.app.loans_service.exception.ResourceNotFoundException;
+import com.bank.app.loans_service.exception.WriteLaneFullException;
+import com.bank.app.loans_service.idempotency.IdempotencyStore;
+import com.bank.app.loans_service.idempotency.IdempotentResponses;
+import com.bank.app.loans_service.metrics.LoanMetrics;
 import com.bank.app.loans_service.service.LoanService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/loan")
@@ -22,16 +52,38 @@ public class LoanController {
 
     private static final Logger logger = LoggerFactory.getLogger(LoanController.class);
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final TypeReference<Loan> LOAN_BODY = new TypeReference<>() {
+    };
+    private static final TypeReference<List<LoanBatchItemResult>> BATCH_BODY = new TypeReference<>() {
+    };
+
     private final LoanService loanService;
+    private final ObjectMapper objectMapper;
+    private final LoanMetrics loanMetrics;
+    private final IdempotencyStore idempotencyStore;
+    private final int issueBatchSize;
+    private final int maxPageSize;
 
     @Autowired
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, ObjectMapper objectMapper, LoanMetrics loanMetrics,
+                          IdempotencyStore idempotencyStore,
+                          @Value("${loan.issue.batch-size:500}") int issueBatchSize,
+                          @Value("${loan.page.max-limit:500}") int maxPageSize) {
         this.loanService = loanService;
+        this.objectMapper = objectMapper;
+        this.loanMetrics = loanMetrics;
+        this.idempotencyStore = idempotencyStore;
+        this.issueBatchSize = issueBatchSize;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
      * Issue a new loan.
      * @param loan The loan details.
+     * @param idempotencyKey Optional key that marks retries of the same request.
      * @return A response entity with the newly created loan.
      */
     @PostMapping("/issue")
@@ -40,16 +92,127 @@ public class LoanController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid input"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Loan> issueLoan(@RequestBody Loan loan) {
-        logger.info("Issuing new loan for user: {}", loan.getUserId());
-        try {
-            Loan newLoan = loanService.issueLoan(loan);
-            logger.info("Loan issued successfully with loanId: {}", newLoan.getId());
-            return new ResponseEntity<>(newLoan, HttpStatus.CREATED);
-        } catch (Exception e) {
-            logger.error("Error issuing loan for user: {}", loan.getUserId(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+    public ResponseEntity<Loan> issueLoan(@RequestBody Loan loan,
+                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, LOAN_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "issue", loan), () -> {
+            logger.info("Issuing new loan for user: {}", loan.getUserId());
+            try {
+                Loan newLoan = loanService.issueLoan(loan);
+                logger.info("Loan issued successfully with loanId: {}", newLoan.getId());
+                return new ResponseEntity<>(newLoan, HttpStatus.CREATED);
+            } catch (Exception e) {
+                logger.error("Error issuing loan for user: {}", loan.getUserId(), e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            }
+        });
+    }
+
+    /**
+     * Issue a batch of new loans.
+     * @param loans The loan details.
+     * @param idempotencyKey Optional key that marks retries of the same request.
+     * @return A response entity with one result per submitted loan.
+     */
+    @PostMapping(value = "/issue/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Issue a batch of loans", description = "Issue a batch of loans, reporting success or failure per loan", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "All loans issued successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "207", description = "Some loans could not be issued"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<LoanBatchItemResult>> issueLoans(@RequestBody List<Loan> loans,
+                                                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, BATCH_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "issue-batch", loans), () -> {
+            logger.info("Issuing batch of {} loans", loans.size());
+            return batchResponse(loanService.issueLoans(loans));
+        });
+    }
+
+    /**
+     * Issue a batch of new loans streamed as newline-delimited JSON. Loans are read and issued
+     * in chunks so the whole request body is never held in memory. A line that is not a valid loan
+     * gets a failed result and the rest are still issued; blank lines are skipped.
+     * @param body The request body, one loan per line.
+     * @return A response entity with one result per submitted loan.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/issue/batch", consumes = APPLICATION_NDJSON)
+    @Operation(summary = "Issue a stream of loans", description = "Issue loans sent as newline-delimited JSON, reporting success or failure per loan", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "201", description = "All loans issued successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "207", description = "Some loans could not be issued"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<LoanBatchItemResult>> issueLoansStream(InputStream body) throws IOException {
+        List<LoanBatchItemResult> results = new ArrayList<>();
+        List<Loan> chunk = new ArrayList<>(issueBatchSize);
+        List<Integer> chunkIndexes = new ArrayList<>(issueBatchSize);
+        ObjectReader reader = objectMapper.readerFor(Loan.class);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            int index = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(reader.readValue(line));
+                    chunkIndexes.add(index);
+                } catch (JsonProcessingException e) {
+                    results.add(LoanBatchItemResult.builder().index(index).success(false)
+                            .error("Malformed loan: " + e.getOriginalMessage()).build());
+                }
+                index++;
+                if (chunk.size() == issueBatchSize) {
+                    issueChunk(chunk, chunkIndexes, results);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            issueChunk(chunk, chunkIndexes, results);
+        }
+        results.sort(Comparator.comparingInt(LoanBatchItemResult::getIndex));
+        logger.info("Issued streamed batch of {} loans", results.size());
+        return batchResponse(results);
+    }
+
+    /**
+     * Run a write at most once per {@code Idempotency-Key}; requests without the header run as usual.
+     * @param idempotencyKey The header value, or null.
+     * @param bodyType The response body type.
+     * @param fingerprint Identifies the request, evaluated before it runs.
+     * @param action The write.
+     * @return The response of this or the original execution.
+     */
+    private <T> ResponseEntity<T> idempotent(String idempotencyKey, TypeReference<T> bodyType,
+                                             Supplier<String> fingerprint, Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
         }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            logger.warn("Rejected idempotency key longer than {} characters", MAX_IDEMPOTENCY_KEY_LENGTH);
+            return ResponseEntity.badRequest().build();
+        }
+        return idempotencyStore.execute(idempotencyKey, fingerprint.get(), bodyType, action);
+    }
+
+    private <T> ResponseEntity<T> writeLaneFull(Long loanId) {
+        logger.warn("Write lane full, rejecting write for loanId: {}", loanId);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(null);
+    }
+
+    private void issueChunk(List<Loan> chunk, List<Integer> chunkIndexes, List<LoanBatchItemResult> results) {
+        for (LoanBatchItemResult result : loanService.issueLoans(chunk)) {
+            result.setIndex(chunkIndexes.get(result.getIndex()));
+            results.add(result);
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
+    private ResponseEntity<List<LoanBatchItemResult>> batchResponse(List<LoanBatchItemResult> results) {
+        boolean allIssued = results.stream().allMatch(LoanBatchItemResult::isSuccess);
+        return ResponseEntity.status(allIssued ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
     }
 
     /**
@@ -73,85 +236,293 @@ public class LoanController {
         return ResponseEntity.ok(loans);
     }
 
+    /**
+     * Get one page of a user's loans.
+     * @param userId The ID of the user.
+     * @param after The cursor returned with the previous page; omit for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return A response entity with the page and the cursor of the next one.
+     */
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    @Operation(summary = "Get a page of loans by user ID", description = "Get loans by user ID using keyset pagination", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loans fetched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid limit")
+    })
+    public ResponseEntity<LoanPage> getLoanPageByUserId(@PathVariable Long userId,
+                                                        @RequestParam(required = false) Long after,
+                                                        @RequestParam int limit) {
+        logger.info("Fetching loan page for user ID: {} after: {} limit: {}", userId, after, limit);
+        if (limit <= 0 || limit > maxPageSize) {
+            logger.warn("Rejected page limit: {} for user ID: {}", limit, userId);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(loanService.getLoanPageByUserId(userId, after, limit));
+    }
+
+    /**
+     * Search loans by status, type, date ranges, balance range, loan number or user.
+     * @param criteria The filters, bound from the query parameters of the same name.
+     * @param after The cursor returned with the previous page; omit for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return A response entity with the page and the cursor of the next one.
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search loans", description = "Search loans by any combination of criteria using keyset pagination", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loans fetched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid limit")
+    })
+    public ResponseEntity<LoanPage> searchLoans(@ModelAttribute LoanSearchCriteria criteria,
+                                                @RequestParam(required = false) Long after,
+                                                @RequestParam(defaultValue = "50") int limit) {
+        logger.info("Searching loans after: {} limit: {}", after, limit);
+        if (limit <= 0 || limit > maxPageSize) {
+            logger.warn("Rejected search limit: {}", limit);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(loanService.searchLoans(criteria, after, limit));
+    }
+
+    /**
+     * Export all of a user's loans as newline-delimited JSON, streamed straight from the database.
+     * @param userId The ID of the user.
+     * @return A response entity that writes one loan per line.
+     */
+    @GetMapping(value = "/user/{userId}", produces = APPLICATION_NDJSON)
+    @Operation(summary = "Export loans by user ID", description = "Stream all loans of a user as newline-delimited JSON", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loans streamed successfully")
+    })
+    public ResponseEntity<StreamingResponseBody> exportLoansByUserId(@PathVariable Long userId) {
+        logger.info("Exporting loans for user ID: {}", userId);
+        StreamingResponseBody body = out -> loanService.streamLoansByUserId(userId, loan -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(loan));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON)).body(body);
+    }
+
+    /**
+     * Get the repayment schedule of a loan.
+     * @param loanId The ID of the loan.
+     * @return A response entity with the installments of the loan.
+     */
+    @GetMapping("/{loanId}/schedule")
+    @Operation(summary = "Get loan repayment schedule", description = "Get the installment schedule of a loan", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Schedule fetched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Loan not found")
+    })
+    public ResponseEntity<AmortizationSchedule> getLoanSchedule(@PathVariable Long loanId) {
+        logger.info("Fetching schedule for loanId: {}", loanId);
+        try {
+            return ResponseEntity.ok(loanService.getLoanSchedule(loanId));
+        } catch (ResourceNotFoundException e) {
+            logger.warn("Loan not found for loanId: {}", loanId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
     /**
      * Update loan status.
      * @param loanId The ID of the loan.
      * @param newStatus The new status of the loan.
+     * @param idempotencyKey Optional key that marks retries of the same request.
      * @return A response entity with the updated loan.
      */
     @PutMapping("/status/{loanId}")
     @Operation(summary = "Update loan status", description = "Update loan status", responses = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loan status updated successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unknown status"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Loan not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Loan was modified concurrently or cannot move to the status"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many writes queued for the loan"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Loan> updateLoanStatus(@PathVariable Long loanId, @RequestParam String newStatus) {
-        logger.info("Updating loan status for loanId: {} to status: {}", loanId, newStatus);
-        try {
-            Loan updatedLoan = loanService.updateLoanStatus(loanId, newStatus);
-            if (updatedLoan == null) {
-                logger.warn("Loan not found for loanId: {}", loanId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+    public ResponseEntity<Loan> updateLoanStatus(@PathVariable Long loanId, @RequestParam LoanStatus newStatus,
+                                                 @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, LOAN_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "status", loanId, newStatus), () -> {
+            logger.info("Updating loan status for loanId: {} to status: {}", loanId, newStatus);
+            try {
+                Loan updatedLoan = loanService.updateLoanStatus(loanId, newStatus);
+                if (updatedLoan == null) {
+                    logger.warn("Loan not found for loanId: {}", loanId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+                }
+                logger.info("Loan status updated successfully for loanId: {}", loanId);
+                return ResponseEntity.ok(updatedLoan);
+            } catch (IllegalStatusTransitionException e) {
+                logger.warn(e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (WriteLaneFullException e) {
+                return writeLaneFull(loanId);
+            } catch (OptimisticLockingFailureException e) {
+                logger.warn("Concurrent update while changing status for loanId: {}", loanId);
+                loanMetrics.outcome(LoanMetrics.OUTCOME_CONFLICT, 1);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (Exception e) {
+                logger.error("Error updating loan status for loanId: {}", loanId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
             }
-            logger.info("Loan status updated successfully for loanId: {}", loanId);
-            return ResponseEntity.ok(updatedLoan);
-        } catch (Exception e) {
-            logger.error("Error updating loan status for loanId: {}", loanId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        });
     }
 
     /**
      * Repay a loan.
      * @param loanId The ID of the loan.
      * @param paymentAmount The amount to be paid.
+     * @param idempotencyKey Optional key that marks retries of the same request.
      * @return A response entity with the updated loan.
      */
     @PutMapping("/repay/{loanId}")
     @Operation(summary = "Repay a loan", description = "Repay a loan", responses = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loan repaid successfully"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Loan not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Loan was modified concurrently"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many writes queued for the loan"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Loan> repayLoan(@PathVariable Long loanId, @RequestParam BigDecimal paymentAmount) {
-        logger.info("Repaying loan for loanId: {} with amount: {}", loanId, paymentAmount);
-        try {
-            Loan repaidLoan = loanService.repayLoan(loanId, paymentAmount);
-            if (repaidLoan == null) {
-                logger.warn("Loan not found or already repaid for loanId: {}", loanId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+    public ResponseEntity<Loan> repayLoan(@PathVariable Long loanId, @RequestParam BigDecimal paymentAmount,
+                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, LOAN_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "repay", loanId, paymentAmount), () -> {
+            logger.info("Repaying loan for loanId: {} with amount: {}", loanId, paymentAmount);
+            try {
+                Loan repaidLoan = loanService.repayLoan(loanId, paymentAmount);
+                if (repaidLoan == null) {
+                    logger.warn("Loan not found or already repaid for loanId: {}", loanId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+                }
+                logger.info("Loan repaid successfully for loanId: {}", loanId);
+                return ResponseEntity.ok(repaidLoan);
+            } catch (WriteLaneFullException e) {
+                return writeLaneFull(loanId);
+            } catch (OptimisticLockingFailureException e) {
+                logger.warn("Concurrent repayments kept conflicting for loanId: {}", loanId);
+                loanMetrics.outcome(LoanMetrics.OUTCOME_CONFLICT, 1);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (Exception e) {
+                logger.error("Error repaying loan for loanId: {}", loanId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
             }
-            logger.info("Loan repaid successfully for loanId: {}", loanId);
-            return ResponseEntity.ok(repaidLoan);
-        } catch (Exception e) {
-            logger.error("Error repaying loan for loanId: {}", loanId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        });
     }
 
     /**
      * Update loan details.
      * @param loan The loan details.
+     * @param idempotencyKey Optional key that marks retries of the same request.
      * @return A response entity with the updated loan.
      */
     @PutMapping("/update")
     @Operation(summary = "Update loan details", description = "Update loan details", responses = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loan updated successfully"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Loan not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Loan was modified concurrently or cannot move to the status"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many writes queued for the loan"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Loan> updateLoan(@RequestBody Loan loan,
+                                           @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, LOAN_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "update", loan), () -> {
+            logger.info("Updating loan details for loanId: {}", loan.getId());
+            try {
+                Loan updatedLoan = loanService.updateLoan(loan);
+                logger.info("Loan details updated successfully for loanId: {}", loan.getId());
+                return ResponseEntity.ok(updatedLoan);
+            } catch (ResourceNotFoundException e) {
+                logger.error("Loan not found with id: {}", loan.getId(), e);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            } catch (IllegalStatusTransitionException e) {
+                logger.warn(e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (WriteLaneFullException e) {
+                return writeLaneFull(loan.getId());
+            } catch (OptimisticLockingFailureException e) {
+                logger.warn("Concurrent update while updating loanId: {}", loan.getId());
+                loanMetrics.outcome(LoanMetrics.OUTCOME_CONFLICT, 1);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (Exception e) {
+                logger.error("Error updating loan details for loanId: {}", loan.getId(), e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            }
+        });
+    }
+
+    /**
+     * Patch loan details with a JSON Merge Patch; only the members present in the body are changed.
+     * @param loanId The ID of the loan.
+     * @param patch The merge patch document.
+     * @param ifMatch Optional version (ETag) the patch was made against.
+     * @param idempotencyKey Optional key that marks retries of the same request.
+     * @return A response entity with the patched loan and its version as ETag.
+     */
+    @PatchMapping(value = "/{loanId}", consumes = APPLICATION_MERGE_PATCH_JSON)
+    @Operation(summary = "Patch loan details", description = "Apply a JSON Merge Patch to a loan", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Loan patched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid patch"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Loan not found"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "409", description = "Loan cannot move to the status, or changed while its status was being patched"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "412", description = "Loan is no longer at the If-Match version"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "429", description = "Too many writes queued for the loan"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<Loan> updateLoan(@RequestBody Loan loan) {
-        logger.info("Updating loan details for loanId: {}", loan.getId());
+    public ResponseEntity<Loan> patchLoan(@PathVariable Long loanId, @RequestBody JsonNode patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotent(idempotencyKey, LOAN_BODY,
+                () -> IdempotentResponses.fingerprint(objectMapper, "patch", loanId, patch, ifMatch), () -> {
+            logger.info("Patching loan details for loanId: {}", loanId);
+            try {
+                Loan patchedLoan = loanService.patchLoan(loanId, parseVersion(ifMatch), LoanPatch.fromMergePatch(patch, objectMapper));
+                logger.info("Loan patched successfully for loanId: {}", loanId);
+                return ResponseEntity.ok().eTag(String.valueOf(patchedLoan.getVersion())).body(patchedLoan);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Rejected patch for loanId: {}: {}", loanId, e.getMessage());
+                return ResponseEntity.badRequest().body(null);
+            } catch (ResourceNotFoundException e) {
+                logger.warn("Loan not found with id: {}", loanId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            } catch (IllegalStatusTransitionException e) {
+                logger.warn(e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            } catch (WriteLaneFullException e) {
+                return writeLaneFull(loanId);
+            } catch (OptimisticLockingFailureException e) {
+                logger.warn("Loan {} is no longer at version {}", loanId, ifMatch);
+                loanMetrics.outcome(LoanMetrics.OUTCOME_CONFLICT, 1);
+                // Without If-Match the check guarded the version read for the old values or the status transition
+                HttpStatus status = parseVersion(ifMatch) == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED;
+                return ResponseEntity.status(status).body(null);
+            } catch (Exception e) {
+                logger.error("Error patching loan details for loanId: {}", loanId, e);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            }
+        });
+    }
+
+    /**
+     * Read the loan version from an If-Match header such as {@code "3"} or {@code W/"3"}.
+     * @param ifMatch The header value, or null.
+     * @return The version, or null when the header is absent or {@code *}.
+     * @throws IllegalArgumentException if the header is not a version.
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
         try {
-            Loan updatedLoan = loanService.updateLoan(loan);
-            logger.info("Loan details updated successfully for loanId: {}", loan.getId());
-            return ResponseEntity.ok(updatedLoan);
-        } catch (ResourceNotFoundException e) {
-            logger.error("Loan not found with id: {}", loan.getId(), e);
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
-        } catch (Exception e) {
-            logger.error("Error updating loan details for loanId: {}", loan.getId(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must carry a loan version: " + ifMatch, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.bank.app.loans_service.controller;
+
+import com.bank.app.loans_service.feed.LoanChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@ConditionalOnProperty(name = "loan.feed.enabled", havingValue = "true")
+@RequestMapping("/loan/feed")
+@Tag(name = "Loan Feed Controller", description = "Stream of loan changes")
+public class LoanFeedController {
+
+    private final LoanChangeFeed loanChangeFeed;
+
+    @Autowired
+    public LoanFeedController(LoanChangeFeed loanChangeFeed) {
+        this.loanChangeFeed = loanChangeFeed;
+    }
+
+    /**
+     * Stream loan changes as server-sent events.
+     * @param userId Only stream this user's loans; all loans when absent.
+     * @param lastEventId The id of the last event received, sent by EventSource clients on reconnect.
+     * @param after The same as Last-Event-ID, for clients that cannot set the header.
+     * @return The event stream.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream loan changes", description = "Stream loan changes, resuming after the given event id or starting from a snapshot", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Stream opened"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Too many subscribers, or the feed is served by another instance")
+    })
+    public SseEmitter streamChanges(@RequestParam(required = false) Long userId,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) String after) {
+        return loanChangeFeed.stream(userId, lastEventId != null ? lastEventId : after);
+    }
+}
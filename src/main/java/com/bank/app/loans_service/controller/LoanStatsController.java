@@ -0,0 +1,82 @@
+package com.bank.app.loans_service.controller;
+
+import com.bank.app.loans_service.dto.PortfolioStats;
+import com.bank.app.loans_service.dto.StatsBucket;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.service.LoanService;
+import com.bank.app.loans_service.stats.LoanPortfolioStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/loan/stats")
+@Tag(name = "Loan Stats Controller", description = "Portfolio totals")
+public class LoanStatsController {
+
+    private final LoanPortfolioStats loanPortfolioStats;
+    private final LoanService loanService;
+
+    @Autowired
+    public LoanStatsController(LoanPortfolioStats loanPortfolioStats, LoanService loanService) {
+        this.loanPortfolioStats = loanPortfolioStats;
+        this.loanService = loanService;
+    }
+
+    /**
+     * Get portfolio totals.
+     * @return A response entity with the outstanding balance by loan type and status and the loans nearing their end date.
+     */
+    @GetMapping
+    @Operation(summary = "Get portfolio stats", description = "Get outstanding balances by loan type and status and loans nearing their end date", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Stats fetched successfully")
+    })
+    public ResponseEntity<PortfolioStats> getPortfolioStats() {
+        return ResponseEntity.ok(loanPortfolioStats.snapshot(LocalDate.now()));
+    }
+
+    /**
+     * Get a user's totals.
+     * @param userId The ID of the user.
+     * @return A response entity with the user's loan count and outstanding balance, or 404 if users are not tracked.
+     */
+    @GetMapping("/user/{userId}")
+    @Operation(summary = "Get user stats", description = "Get the loan count and outstanding balance of a user", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Stats fetched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Per-user stats are not enabled")
+    })
+    public ResponseEntity<StatsBucket> getUserStats(@PathVariable Long userId) {
+        if (!loanPortfolioStats.isTrackingUsers()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(loanPortfolioStats.forUser(userId));
+    }
+
+    /**
+     * Count the loans in a status that end within the next days, straight from the database.
+     * @param status The status, ACTIVE by default.
+     * @param days How many days ahead to look, today included.
+     * @return A response entity with the number of loans.
+     */
+    @GetMapping("/due")
+    @Operation(summary = "Count loans due", description = "Count the loans in a status whose end date is within the next days", responses = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Count fetched successfully"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unknown status or negative days")
+    })
+    public ResponseEntity<Long> countLoansDue(@RequestParam(defaultValue = "ACTIVE") LoanStatus status,
+                                              @RequestParam(defaultValue = "30") int days) {
+        if (days < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate today = LocalDate.now();
+        return ResponseEntity.ok(loanService.countLoansDue(status, today, today.plusDays(days)));
+    }
+}
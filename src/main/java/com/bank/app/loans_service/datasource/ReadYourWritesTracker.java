@@ -0,0 +1,77 @@
+package com.bank.app.loans_service.datasource;
+
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which users changed a loan within the last {@code loan.datasource.read-your-writes-window}
+ * so their reads are served by the primary instead of a replica that may not have caught up yet.
+ * Users are recorded before the writing transaction commits, so no read can slip in between.
+ * The window is tracked per instance; it does nothing unless replicas are enabled.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentWriters;
+
+    @Autowired
+    public ReadYourWritesTracker(@Value("${loan.datasource.replicas.enabled:false}") boolean enabled,
+                                 @Value("${loan.datasource.read-your-writes-window:PT5S}") Duration window,
+                                 @Value("${loan.datasource.read-your-writes-maximum-size:100000}") long maximumSize) {
+        this.enabled = enabled && !window.isZero();
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getLoan().getUserId() != null) {
+            recentWriters.put(event.getLoan().getUserId(), Boolean.TRUE);
+        }
+        if (event.getPrevious() != null && event.getPrevious().getUserId() != null) {
+            recentWriters.put(event.getPrevious().getUserId(), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Run a read for a user, on the primary if the user wrote recently.
+     * @param userId The ID of the user whose data is read.
+     * @param query The read. Its connection must not have been acquired yet.
+     * @return The read's result.
+     */
+    public <T> T read(Long userId, Supplier<T> query) {
+        if (!enabled || userId == null || recentWriters.getIfPresent(userId) == null || isPrimaryPinned()) {
+            return query.get();
+        }
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PRIMARY_PINNED.remove();
+        }
+    }
+
+    /**
+     * @return Whether reads on the current thread must go to the primary.
+     */
+    static boolean isPrimaryPinned() {
+        return PRIMARY_PINNED.get() != null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank.app.loans_service.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to a healthy replica, round robin, and everything
+ * else to the primary. Reads for a user inside their read-your-writes window are pinned to the
+ * primary by {@link ReadYourWritesTracker}.
+ * <p>
+ * The lookup key is only known once the transaction is marked read-only, so this data source must
+ * sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers
+ * fetching the physical connection to the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private final javax.sql.DataSource primary;
+    private final Map<String, javax.sql.DataSource> replicas;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<String> healthyReplicas;
+
+    /**
+     * @param primary The read-write primary.
+     * @param replicas The replicas by name, all assumed healthy until the first check.
+     * @param validationTimeoutSeconds How long a health check waits for a replica to answer.
+     */
+    public ReplicaRoutingDataSource(javax.sql.DataSource primary, Map<String, javax.sql.DataSource> replicas,
+                                    int validationTimeoutSeconds) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.healthyReplicas = List.copyOf(this.replicas.keySet());
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWritesTracker.isPrimaryPinned()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Falls back to the primary when the chosen replica cannot hand out a connection, and takes
+     * that replica out of rotation until the next successful health check.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(key).getConnection();
+        } catch (SQLException e) {
+            logger.warn("Replica {} unavailable, reading from the primary", key, e);
+            markUnhealthy((String) key);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Re-validates every replica and updates the rotation.
+     */
+    @Scheduled(fixedDelayString = "${loan.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, javax.sql.DataSource> replica : replicas.entrySet()) {
+            try (Connection connection = replica.getValue().getConnection()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    healthy.add(replica.getKey());
+                    continue;
+                }
+                logger.warn("Replica {} failed validation", replica.getKey());
+            } catch (SQLException e) {
+                logger.warn("Replica {} failed health check: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            logger.info("Healthy replicas: {} of {}", healthy, replicas.keySet());
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    /**
+     * @return The replicas currently in rotation.
+     */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    private synchronized void markUnhealthy(String replica) {
+        List<String> healthy = new ArrayList<>(healthyReplicas);
+        if (healthy.remove(replica)) {
+            healthyReplicas = List.copyOf(healthy);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (javax.sql.DataSource replica : replicas.values()) {
+            if (replica instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
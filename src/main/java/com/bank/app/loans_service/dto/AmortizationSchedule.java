@@ -0,0 +1,25 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repayment schedule for a set of loan terms. Instances are immutable and shared between all
+ * loans with the same terms.
+ */
+@Getter
+@AllArgsConstructor
+public class AmortizationSchedule {
+
+    private final AmortizationMethod method;
+    private final BigDecimal principal;
+    private final BigDecimal annualInterestRate;
+    private final int tenureMonths;
+    private final BigDecimal totalInterest;
+    private final BigDecimal totalPayable;
+    private final List<Installment> installments;
+}
@@ -0,0 +1,17 @@
+package com.bank.app.loans_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class Installment {
+
+    private final int number;  // 1-based, due this many months after the start date
+    private final BigDecimal payment;
+    private final BigDecimal principal;
+    private final BigDecimal interest;
+    private final BigDecimal closingBalance;  // Principal still outstanding after this installment
+}
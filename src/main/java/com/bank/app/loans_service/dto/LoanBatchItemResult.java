@@ -0,0 +1,17 @@
+package com.bank.app.loans_service.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanBatchItemResult {
+
+    private int index;  // Position of the loan in the submitted batch
+    private boolean success;
+    private Long loanId;
+    private String loanNumber;
+    private String error;
+}
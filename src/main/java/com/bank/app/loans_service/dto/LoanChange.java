@@ -0,0 +1,19 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.Loan;
+import lombok.*;
+
+/**
+ * One entry of the loan change feed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanChange {
+
+    private long sequence;  // Increases by one per change made through the serving instance
+    private String eventType;  // Same type as the Kafka event, e.g., loan_repaid
+    private Loan loan;  // Copy of the state after the change; skip it if loan.version is not newer than what you hold
+}
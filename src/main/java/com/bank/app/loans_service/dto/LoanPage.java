@@ -0,0 +1,16 @@
+package com.bank.app.loans_service.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanPage {
+
+    private List<LoanSummary> items;
+    private Long nextCursor;  // Pass as "after" to fetch the next page, null on the last page
+}
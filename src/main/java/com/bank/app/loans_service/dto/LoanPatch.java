@@ -0,0 +1,144 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The loan columns set by a JSON Merge Patch (RFC 7396). A member with a value sets the column,
+ * a null member clears it and an absent member leaves it unchanged. Identity and bookkeeping
+ * columns (id, loanNumber, version, lastAccrualDate) cannot be patched.
+ */
+public final class LoanPatch {
+
+    private record Field(Class<?> type, boolean nullable, boolean readModel) {
+    }
+
+    // readModel marks the columns that in-process read models (stats, caches) derive from
+    private static final Map<String, Field> FIELDS = Map.of(
+            "userId", new Field(Long.class, false, true),
+            "loanAmount", new Field(BigDecimal.class, false, false),
+            "loanType", new Field(LoanType.class, false, true),
+            "interestRate", new Field(BigDecimal.class, false, false),
+            "amortizationMethod", new Field(AmortizationMethod.class, true, false),
+            "tenureMonths", new Field(Integer.class, false, false),
+            "startDate", new Field(LocalDate.class, true, false),
+            "endDate", new Field(LocalDate.class, true, true),
+            "remainingBalance", new Field(BigDecimal.class, false, true),
+            "loanStatus", new Field(LoanStatus.class, false, true));
+
+    private final Map<String, Object> values;
+
+    private LoanPatch(Map<String, Object> values) {
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Parse and validate a merge patch document.
+     * @param patch The request body.
+     * @param objectMapper Converts member values to the column types.
+     * @return The patch.
+     * @throws IllegalArgumentException if the document is not an object, names a column that cannot be
+     * patched, clears a required column or carries an invalid value.
+     */
+    public static LoanPatch fromMergePatch(JsonNode patch, ObjectMapper objectMapper) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("A merge patch must be a JSON object");
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+            String name = member.getKey();
+            Field field = FIELDS.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException(name + " cannot be patched");
+            }
+            if (member.getValue().isNull()) {
+                if (!field.nullable()) {
+                    throw new IllegalArgumentException(name + " cannot be cleared");
+                }
+                values.put(name, null);
+                continue;
+            }
+            Object value;
+            try {
+                value = objectMapper.treeToValue(member.getValue(), field.type());
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Invalid value for " + name, e);
+            }
+            if (value instanceof BigDecimal amount && amount.signum() < 0) {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            if (value instanceof Integer months && months <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            values.put(name, value);
+        }
+        return new LoanPatch(values);
+    }
+
+    /**
+     * @return The patched attributes in document order, mapped to their new value; null clears the column.
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    /**
+     * @param attribute A patched attribute.
+     * @return The Java type of the attribute's column.
+     */
+    public Class<?> typeOf(String attribute) {
+        return FIELDS.get(attribute).type();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * @return Whether the patch changes a column that stats or caches derive from, which needs the old value.
+     */
+    public boolean touchesReadModels() {
+        return values.keySet().stream().anyMatch(attribute -> FIELDS.get(attribute).readModel());
+    }
+
+    /**
+     * @return The attributes set to a value, rendered as text for the delta event.
+     */
+    public Map<String, String> changedValues() {
+        Map<String, String> changed = new LinkedHashMap<>();
+        values.forEach((attribute, value) -> {
+            if (value != null) {
+                changed.put(attribute, value instanceof BigDecimal amount ? amount.toPlainString() : value.toString());
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * @return The attributes the patch clears.
+     */
+    public List<String> clearedFields() {
+        List<String> cleared = new ArrayList<>();
+        values.forEach((attribute, value) -> {
+            if (value == null) {
+                cleared.add(attribute);
+            }
+        });
+        return cleared;
+    }
+}
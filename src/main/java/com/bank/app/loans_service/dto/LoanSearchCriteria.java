@@ -0,0 +1,35 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Filters of a loan search. Unset fields do not filter; date and balance bounds are inclusive.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanSearchCriteria {
+
+    private Long userId;
+    private LoanStatus loanStatus;  // Matches rows already holding the one-letter code
+    private LoanType loanType;
+    private String loanNumber;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDateTo;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDateTo;
+    private BigDecimal minBalance;  // Bounds on the remaining balance
+    private BigDecimal maxBalance;
+}
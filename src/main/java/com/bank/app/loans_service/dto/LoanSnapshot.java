@@ -0,0 +1,20 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.Loan;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * A user's loans as sent at the start of a change feed that could not be resumed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoanSnapshot {
+
+    private long sequence;  // Changes after this sequence follow the snapshot
+    private List<Loan> loans;
+}
@@ -0,0 +1,32 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of a loan. Queries returning it select only these columns and bypass
+ * entity hydration and the persistence context.
+ */
+public interface LoanSummary {
+
+    Long getId();
+
+    String getLoanNumber();
+
+    LoanType getLoanType();
+
+    BigDecimal getLoanAmount();
+
+    BigDecimal getInterestRate();
+
+    BigDecimal getRemainingBalance();
+
+    LoanStatus getLoanStatus();
+
+    LocalDate getStartDate();
+
+    LocalDate getEndDate();
+}
@@ -0,0 +1,23 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Portfolio totals as maintained in memory by {@code LoanPortfolioStats}.
+ */
+@Getter
+@AllArgsConstructor
+public class PortfolioStats {
+
+    private final StatsBucket total;
+    private final Map<LoanType, StatsBucket> byLoanType;
+    private final Map<LoanStatus, StatsBucket> byStatus;
+    private final Map<Integer, Long> openLoansEndingWithinDays;  // Loans with a balance whose end date is within N days
+    private final Instant reconciledAt;  // Last time the totals were rebuilt from the database, null before the first run
+}
@@ -0,0 +1,17 @@
+package com.bank.app.loans_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of loans and their outstanding balance within one group of the portfolio.
+ */
+@Getter
+@AllArgsConstructor
+public class StatsBucket {
+
+    private final long loanCount;
+    private final BigDecimal outstandingBalance;
+}
@@ -0,0 +1,7 @@
+package com.bank.app.loans_service.entity;
+
+public enum AmortizationMethod {
+    REDUCING_BALANCE,  // Equal installments (EMI), interest charged on the outstanding balance
+    FLAT,  // Interest charged on the original principal for the whole tenure
+    INTEREST_ONLY  // Interest every month, principal repaid with the last installment
+}
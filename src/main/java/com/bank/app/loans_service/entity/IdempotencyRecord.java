@@ -0,0 +1,31 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Response stored for an {@code Idempotency-Key} by the database backed idempotency store.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "loan_idempotency_keys", indexes = @Index(name = "idx_loan_idempotency_keys_expires_at", columnList = "expiresAt"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    @Column(length = 64, nullable = false)
+    private String fingerprint;  // SHA-256 of the original request
+    private boolean completed;  // False while the original request is running
+    private Integer statusCode;
+    @Lob
+    private String responseBody;  // JSON encoded response body
+    private Instant createdAt;
+    private Instant expiresAt;
+}
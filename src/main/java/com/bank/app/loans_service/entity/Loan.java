@@ -2,22 +2,29 @@ package com.bank.app.loans_service.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@DynamicUpdate  // Updates write only the changed columns
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
-@Table(name = "loans")
+@Builder(toBuilder = true)
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loans_user_id_id", columnList = "userId, id"),
+        @Index(name = "idx_loans_status_end_date", columnList = "loan_status, endDate"),
+        @Index(name = "idx_loans_type_status", columnList = "loanType, loan_status")
+})
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_seq")
+    @SequenceGenerator(name = "loans_seq", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
     private Long userId;  // Foreign key to User
     @Column(name = "amount")
@@ -27,11 +34,26 @@ public class Loan {
     @Enumerated(EnumType.STRING)
     private LoanType loanType;
     private BigDecimal interestRate;
+    @Enumerated(EnumType.STRING)
+    private AmortizationMethod amortizationMethod;  // Null for loans priced before schedules existed, which used FLAT
     private int tenureMonths;  // Tenure of the loan in months
     private LocalDate startDate;
     private LocalDate endDate;
     private BigDecimal remainingBalance;
-    private String loanStatus;  // e.g., ACTIVE, CLOSED, DEFAULTED
+    @Column(name = "loan_status", length = 1)
+    private LoanStatus loanStatus;  // Stored as a one-letter code, see LoanStatusConverter
+    // The converter turns every criteria literal compared with loanStatus into a code, so a query cannot
+    // name a legacy value through it. This read-only view of the same column lets searches match codes
+    // and legacy names with a plain IN that the status indexes still serve, where casting loanStatus to
+    // text would not. Drop it once LoanStatusMigration has finished everywhere.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "loan_status", length = 1, insertable = false, updatable = false)
+    private String storedLoanStatus;
+    private LocalDate lastAccrualDate;  // Day up to which overdue interest has been added to the balance
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;  // Optimistic lock, bumped on every update
 
 
 }
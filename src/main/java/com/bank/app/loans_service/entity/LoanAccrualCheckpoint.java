@@ -0,0 +1,27 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "loan_accrual_checkpoints", indexes = @Index(name = "idx_loan_accrual_checkpoints_run_date", columnList = "runDate"))
+public class LoanAccrualCheckpoint {
+
+    @Id
+    private String id;  // <runDate>:<partition>
+    private LocalDate runDate;
+    private int partitionNo;
+    private long lowerLoanId;  // Exclusive lower bound of the partition's id range
+    private long upperLoanId;  // Inclusive upper bound of the partition's id range
+    private long lastLoanId;  // Last loan id committed by this partition
+    private boolean completed;
+    private Instant updatedAt;
+}
@@ -0,0 +1,21 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "loan_feed_leases")
+public class LoanFeedLease {
+
+    @Id
+    private String name;  // Resource the lease guards
+    private String holder;  // Instance serving it
+    private Instant expiresAt;  // Another instance may take over after this, null once released
+}
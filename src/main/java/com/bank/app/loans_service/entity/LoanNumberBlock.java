@@ -0,0 +1,18 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "loan_number_blocks")
+public class LoanNumberBlock {
+
+    @Id
+    private String name;  // Generator the range belongs to
+    private Long nextValue;  // First value not yet leased to any instance
+}
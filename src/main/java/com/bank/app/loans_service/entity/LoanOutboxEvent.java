@@ -0,0 +1,32 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "loan_outbox", indexes = {
+        @Index(name = "idx_loan_outbox_loan_id_id", columnList = "loanId, id"),
+        @Index(name = "idx_loan_outbox_created_at", columnList = "createdAt")
+})
+public class LoanOutboxEvent {
+
+    @Id
+    // Assigned by the database as each row is inserted, so a loan's events, written one transaction after
+    // the other, get increasing ids on every instance. Ids drawn from pooled sequence blocks or clock
+    // readings from different instances would not order them.
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private Long loanId;  // Loan the event belongs to
+    private String eventType;  // e.g., loan_issued, loan_repaid
+    @Lob
+    private String payload;  // JSON encoded LoanNotification, or LoanDeltaNotification for loan_details_patched
+    private Instant createdAt;
+    private Instant claimedUntil;  // Lease of the relay sending the event, null while no relay holds it
+}
@@ -0,0 +1,110 @@
+package com.bank.app.loans_service.entity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
+
+/**
+ * Lifecycle of a loan, stored as a one-letter code by {@link LoanStatusConverter}.
+ * <pre>
+ * ACTIVE    -> OVERDUE, DEFAULTED, CLOSED
+ * OVERDUE   -> ACTIVE, DEFAULTED, CLOSED
+ * DEFAULTED -> CLOSED
+ * CLOSED    (final)
+ * </pre>
+ * Before the enum the status was free text, so besides the full names a few other values the old
+ * API accepted are still read, as the aliases listed with each status.
+ */
+public enum LoanStatus {
+    // Loans were only ever stored once issued, so a pending or approved loan is an active one
+    ACTIVE("A", "PENDING", "APPROVED", "OPEN", "DISBURSED"),
+    OVERDUE("O", "LATE", "DELINQUENT", "PAST_DUE"),
+    DEFAULTED("D", "DEFAULT", "WRITTEN_OFF"),
+    CLOSED(LoanStatus.CLOSED_CODE, "PAID", "REPAID", "SETTLED", "COMPLETED");
+
+    public static final String CLOSED_CODE = "C";  // For native queries that close loans
+
+    private final String code;
+    private final List<String> aliases;
+
+    LoanStatus(String code, String... aliases) {
+        this.code = code;
+        this.aliases = List.of(aliases);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return Whether the loan still has a balance to collect.
+     */
+    public boolean isOpen() {
+        return this == ACTIVE || this == OVERDUE;
+    }
+
+    /**
+     * @param next The status to move to.
+     * @return Whether the move is allowed; staying in the same status always is.
+     */
+    public boolean canTransitionTo(LoanStatus next) {
+        if (next == this) {
+            return true;
+        }
+        return switch (this) {
+            case ACTIVE -> next == OVERDUE || next == DEFAULTED || next == CLOSED;
+            case OVERDUE -> next == ACTIVE || next == DEFAULTED || next == CLOSED;
+            case DEFAULTED -> next == CLOSED;
+            case CLOSED -> false;
+        };
+    }
+
+    /**
+     * @return Every value a row in this status may hold: the code, then the full name and aliases
+     * stored before the codes.
+     */
+    public List<String> storedValues() {
+        return Stream.concat(Stream.of(code, name()), aliases.stream()).toList();
+    }
+
+    /**
+     * Read a stored status. Accepts the one-letter codes, and the full names and aliases stored before
+     * the codes in any case, so rows the migration has not reached yet still load.
+     * @param value The column value, or null.
+     * @return The status, or null.
+     * @throws IllegalArgumentException if the value is none of these. Such rows are left alone by
+     * {@code LoanStatusMigration}, which lists them, and must be corrected by hand.
+     */
+    public static LoanStatus fromDatabase(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (LoanStatus status : values()) {
+            if (status.code.equals(value)) {
+                return status;
+            }
+        }
+        String legacy = value.trim().toUpperCase(Locale.ROOT);
+        for (LoanStatus status : values()) {
+            if (status.name().equals(legacy) || status.aliases.contains(legacy)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown loan status '" + value + "'");
+    }
+
+    /**
+     * Render the {@link #storedValues() stored values} of some statuses as an SQL list, for queries
+     * that must also match rows not migrated yet.
+     * @param statuses The statuses.
+     * @return For example {@code ('D', 'DEFAULTED', 'DEFAULT', 'WRITTEN_OFF')}.
+     */
+    public static String sqlValues(LoanStatus... statuses) {
+        return Arrays.stream(statuses)
+                .flatMap(status -> status.storedValues().stream())
+                .map(value -> "'" + value + "'")
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.bank.app.loans_service.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores {@link LoanStatus} as its one-letter code, which keeps the status column and the indexes
+ * that lead with it small. Also applied to query parameters and criteria literals.
+ */
+@Converter(autoApply = true)
+public class LoanStatusConverter implements AttributeConverter<LoanStatus, String> {
+
+    @Override
+    public String convertToDatabaseColumn(LoanStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public LoanStatus convertToEntityAttribute(String value) {
+        return LoanStatus.fromDatabase(value);
+    }
+}
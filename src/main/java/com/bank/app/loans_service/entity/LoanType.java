@@ -1,5 +1,17 @@
 package com.bank.app.loans_service.entity;
 
 public enum LoanType {
-    PERSONAL, HOME, AUTO
+    PERSONAL(AmortizationMethod.FLAT),
+    HOME(AmortizationMethod.REDUCING_BALANCE),
+    AUTO(AmortizationMethod.REDUCING_BALANCE);
+
+    private final AmortizationMethod defaultAmortizationMethod;
+
+    LoanType(AmortizationMethod defaultAmortizationMethod) {
+        this.defaultAmortizationMethod = defaultAmortizationMethod;
+    }
+
+    public AmortizationMethod getDefaultAmortizationMethod() {
+        return defaultAmortizationMethod;
+    }
 }
@@ -0,0 +1,24 @@
+package com.bank.app.loans_service.event;
+
+import com.bank.app.loans_service.entity.Loan;
+import lombok.Getter;
+
+/**
+ * In-process notification that a loan was written. Published alongside every outbox event so
+ * local read models can follow changes; listeners should react after the transaction commits.
+ */
+@Getter
+public class LoanChangedEvent {
+
+    private final String eventType;  // Same type as the outbox event, e.g., loan_repaid
+    private final Loan loan;  // Detached copy of the state after the change
+    private final Loan previous;  // Detached copy of the state before the change, null for new loans
+
+    public LoanChangedEvent(String eventType, Loan loan, Loan previous) {
+        this.eventType = eventType;
+        // Listeners run after commit, when the managed loan already holds any later write to it in the
+        // same transaction, such as the next write of a lane batch
+        this.loan = loan.toBuilder().build();
+        this.previous = previous;
+    }
+}
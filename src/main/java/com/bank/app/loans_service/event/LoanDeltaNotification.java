@@ -0,0 +1,26 @@
+package com.bank.app.loans_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kafka payload of a patched loan. Carries only the columns the patch changed, so consumers
+ * apply it to their copy of the loan instead of replacing the whole record.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDeltaNotification {
+
+    private Long loanId;
+    private Long userId;  // Owner after the patch, for consumers that partition by user
+    private Long version;  // Version after the patch; consumers can drop deltas older than their copy
+    private Map<String, String> changes;  // Attribute name to new value, as text
+    private List<String> cleared;  // Attributes set to null
+}
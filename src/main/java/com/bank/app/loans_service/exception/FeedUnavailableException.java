@@ -0,0 +1,12 @@
+package com.bank.app.loans_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class FeedUnavailableException extends RuntimeException {
+
+    public FeedUnavailableException(String message) {
+        super(message);
+    }
+}
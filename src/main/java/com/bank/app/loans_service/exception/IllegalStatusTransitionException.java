@@ -0,0 +1,12 @@
+package com.bank.app.loans_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class IllegalStatusTransitionException extends RuntimeException {
+
+    public IllegalStatusTransitionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.app.loans_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS)
+public class WriteLaneFullException extends RuntimeException {
+
+    public WriteLaneFullException(String message) {
+        super(message);
+    }
+}
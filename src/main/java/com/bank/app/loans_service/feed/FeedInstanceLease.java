@@ -0,0 +1,150 @@
+package com.bank.app.loans_service.feed;
+
+import com.bank.app.loans_service.entity.LoanFeedLease;
+import com.bank.app.loans_service.repo.LoanFeedLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Instant;
+
+/**
+ * Keeps the change feed to a single instance. The feed only sees writes made through its own
+ * instance and numbers them locally, so with a second replica it would silently miss changes and
+ * hand out event ids the other replica cannot resume. The instance serving the feed holds a lease
+ * row in {@code loan_feed_leases} and renews it every {@code loan.feed.lease-renew-interval-ms};
+ * another instance with the feed enabled fails to start while the lease is live.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.feed.enabled", havingValue = "true")
+public class FeedInstanceLease {
+
+    private static final String LEASE_NAME = "loan_feed";
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedInstanceLease.class);
+
+    private final LoanFeedLeaseRepository leaseRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final Clock clock;
+    private final long ttlMs;
+    private final String holder;
+    private volatile Instant heldUntil;  // Null until acquired and once lost or released
+
+    @Autowired
+    public FeedInstanceLease(LoanFeedLeaseRepository leaseRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${loan.feed.lease-ttl-ms:30000}") long ttlMs,
+                             @Value("${loan.feed.lease-renew-interval-ms:10000}") long renewIntervalMs) {
+        this(leaseRepository, transactionManager, Clock.systemUTC(), ttlMs, renewIntervalMs,
+                ManagementFactory.getRuntimeMXBean().getName() + "@" + ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    FeedInstanceLease(LoanFeedLeaseRepository leaseRepository, PlatformTransactionManager transactionManager,
+                      Clock clock, long ttlMs, long renewIntervalMs, String holder) {
+        if (renewIntervalMs >= ttlMs) {
+            throw new IllegalArgumentException("loan.feed.lease-renew-interval-ms must be below loan.feed.lease-ttl-ms");
+        }
+        this.leaseRepository = leaseRepository;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+        this.ttlMs = ttlMs;
+        this.holder = holder;
+    }
+
+    /**
+     * Take the lease, failing startup if another instance holds it.
+     * @throws IllegalStateException if another instance serves the feed.
+     */
+    @PostConstruct
+    public void acquire() {
+        String other = claim();
+        if (other != null) {
+            throw new IllegalStateException("The change feed supports a single instance, but " + other
+                    + " already serves it. Run one replica with loan.feed.enabled=true or disable the feed");
+        }
+        logger.info("Serving the change feed as {}", holder);
+    }
+
+    /**
+     * Extend the lease before it runs out.
+     */
+    @Scheduled(fixedDelayString = "${loan.feed.lease-renew-interval-ms:10000}")
+    public void renew() {
+        if (heldUntil == null) {
+            return;
+        }
+        try {
+            String other = claim();
+            if (other != null) {
+                logger.error("Change feed lease taken over by {}; this instance stops serving the feed", other);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not renew the change feed lease, held until {}", heldUntil, e);
+        }
+    }
+
+    /**
+     * @return Whether this instance holds the lease and may serve the feed.
+     */
+    public boolean isHeld() {
+        Instant until = heldUntil;
+        return until != null && clock.instant().isBefore(until);
+    }
+
+    @PreDestroy
+    public void release() {
+        if (heldUntil == null) {
+            return;
+        }
+        heldUntil = null;
+        try {
+            leaseTransaction.executeWithoutResult(status -> leaseRepository.findForUpdate(LEASE_NAME)
+                    .filter(lease -> holder.equals(lease.getHolder()))
+                    .ifPresent(lease -> lease.setExpiresAt(null)));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release the change feed lease; it runs out in {} ms", ttlMs, e);
+        }
+    }
+
+    /**
+     * @return The holder of a live lease owned by another instance, or null once this instance holds it.
+     */
+    private String claim() {
+        Instant now = clock.instant();
+        String other;
+        try {
+            other = leaseTransaction.execute(status -> claimLease(now));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the lease row first; claim it from there
+            other = leaseTransaction.execute(status -> claimLease(now));
+        }
+        heldUntil = other == null ? now.plusMillis(ttlMs) : null;
+        return other;
+    }
+
+    private String claimLease(Instant now) {
+        LoanFeedLease lease = leaseRepository.findForUpdate(LEASE_NAME).orElse(null);
+        if (lease == null) {
+            lease = LoanFeedLease.builder().name(LEASE_NAME).build();
+        } else if (!holder.equals(lease.getHolder()) && lease.getExpiresAt() != null && lease.getExpiresAt().isAfter(now)) {
+            return lease.getHolder();
+        }
+        lease.setHolder(holder);
+        lease.setExpiresAt(now.plusMillis(ttlMs));
+        leaseRepository.saveAndFlush(lease);
+        return null;
+    }
+}
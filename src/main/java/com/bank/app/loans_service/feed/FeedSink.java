@@ -0,0 +1,28 @@
+package com.bank.app.loans_service.feed;
+
+import java.io.IOException;
+
+/**
+ * Where a subscriber's feed entries are written, normally an SSE response.
+ */
+interface FeedSink {
+
+    /**
+     * @param id The event id a client sends back to resume after this event.
+     * @param name The event name.
+     * @param data The event payload.
+     * @throws IOException if the client is gone.
+     */
+    void send(String id, String name, Object data) throws IOException;
+
+    /**
+     * Write a comment that keeps idle connections open and detects clients that are gone.
+     * @throws IOException if the client is gone.
+     */
+    void heartbeat() throws IOException;
+
+    /**
+     * End the response; the client is expected to reconnect with the last event id it received.
+     */
+    void close();
+}
@@ -0,0 +1,419 @@
+package com.bank.app.loans_service.feed;
+
+import com.bank.app.loans_service.dto.LoanChange;
+import com.bank.app.loans_service.dto.LoanSnapshot;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.exception.FeedSubscriberLimitException;
+import com.bank.app.loans_service.exception.FeedUnavailableException;
+import com.bank.app.loans_service.repo.LoansRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Streams committed loan changes to downstream consumers so they do not have to poll the API.
+ * Every change made through this instance gets the next sequence number and is kept in a ring of
+ * the last {@code loan.feed.retention} changes. A subscriber that reconnects with the id of the
+ * last event it received is replayed what it missed from the ring; one that cannot be resumed
+ * (first connection, restarted instance or too far behind) gets a snapshot of the user's loans
+ * first and the changes after it. The snapshot is read from the primary, bypassing the loans-by-user
+ * cache and the replicas, so it holds every change numbered before it whatever order the other
+ * commit listeners run in.
+ * <p>
+ * Each subscriber has a queue of {@code loan.feed.subscriber-buffer} changes drained by a small
+ * shared pool of sender threads, so a slow consumer never holds up writers or other consumers.
+ * When its queue overflows the subscriber is disconnected and resumes from the ring on reconnect.
+ * <p>
+ * Sequence numbers are local and the feed never sees writes made through other replicas, so it is
+ * only correct on a single instance. {@link FeedInstanceLease} fails the startup of a second
+ * instance with the feed enabled, and the feed stops serving if this instance ever loses the lease.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.feed.enabled", havingValue = "true")
+public class LoanChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanChangeFeed.class);
+
+    private final LoansRepository loansRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final Executor sender;
+    private final BooleanSupplier serving;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    // Event ids carry the instance start time so ids from a previous run are never resumed
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Object lock = new Object();
+    private final Entry[] ring;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter snapshots;
+    private final Counter resumed;
+    private long sequence;  // Guarded by lock
+
+    @Autowired
+    public LoanChangeFeed(LoansRepository loansRepository,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          FeedInstanceLease lease,
+                          @Value("${loan.feed.retention:10000}") int retention,
+                          @Value("${loan.feed.subscriber-buffer:256}") int subscriberBuffer,
+                          @Value("${loan.feed.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${loan.feed.sender-threads:4}") int senderThreads,
+                          @Value("${loan.feed.timeout-ms:1800000}") long timeoutMs) {
+        this(loansRepository, transactionManager, meterRegistry, retention, subscriberBuffer, maxSubscribers, timeoutMs,
+                Executors.newFixedThreadPool(senderThreads, new SenderThreadFactory()), lease::isHeld);
+    }
+
+    LoanChangeFeed(LoansRepository loansRepository, PlatformTransactionManager transactionManager,
+                   MeterRegistry meterRegistry, int retention, int subscriberBuffer, int maxSubscribers,
+                   long timeoutMs, Executor sender, BooleanSupplier serving) {
+        this.loansRepository = loansRepository;
+        // Not read-only, so the routing data source keeps the read on the primary
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.sender = sender;
+        this.serving = serving;
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.ring = new Entry[retention];
+        Gauge.builder("loan.feed.subscribers", subscribers, AtomicInteger::get)
+                .description("Connected change feed subscribers")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("loan.feed.dropped")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+        this.snapshots = Counter.builder("loan.feed.snapshots")
+                .description("Subscriptions that started from a snapshot or reset")
+                .register(meterRegistry);
+        this.resumed = Counter.builder("loan.feed.resumed")
+                .description("Subscriptions resumed from the retained changes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number a committed loan change and hand it to the matching subscribers.
+     * @param event The loan change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        Long previousUserId = event.getPrevious() == null ? null : event.getPrevious().getUserId();
+        synchronized (lock) {
+            // Own copy, as the event's loan is shared with every other listener
+            LoanChange change = new LoanChange(++sequence, event.getEventType(), event.getLoan().toBuilder().build());
+            Entry entry = new Entry(change, previousUserId);
+            ring[(int) (sequence % ring.length)] = entry;
+            for (Subscription subscription : subscriptions) {
+                if (subscription.matches(entry)) {
+                    subscription.enqueue(change);
+                }
+            }
+        }
+    }
+
+    /**
+     * Open a server-sent event stream of loan changes.
+     * @param userId Only stream this user's loans; all loans when null.
+     * @param lastEventId The id of the last event the client received, null on first connection.
+     * @return The emitter the changes are written to.
+     * @throws FeedSubscriberLimitException if {@code loan.feed.max-subscribers} are already connected.
+     * @throws FeedUnavailableException if this instance no longer holds the feed lease.
+     */
+    public SseEmitter stream(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = subscribe(new SseFeedSink(emitter), userId, lastEventId);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+
+    Subscription subscribe(FeedSink sink, Long userId, String lastEventId) {
+        if (!serving.getAsBoolean()) {
+            throw new FeedUnavailableException("Change feed is not served by this instance");
+        }
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            throw new FeedSubscriberLimitException("Change feed already has " + maxSubscribers + " subscribers");
+        }
+        Subscription subscription = new Subscription(sink, userId, subscriberBuffer);
+        long start;
+        boolean replayed;
+        synchronized (lock) {
+            start = sequence;
+            Long after = resumePoint(lastEventId);
+            replayed = after != null && after <= sequence && sequence - after <= ring.length;
+            if (replayed) {
+                // Sent straight from the ring, so a replay is not limited by the subscriber buffer
+                subscription.replayNext = after + 1;
+                subscription.replayEnd = sequence;
+            }
+            subscriptions.add(subscription);
+        }
+        try {
+            if (replayed) {
+                resumed.increment();
+            } else {
+                // Changes after start are already queued; ones the snapshot also contains are
+                // recognised by the client from the loan version
+                snapshots.increment();
+                if (userId != null) {
+                    List<Loan> loans = snapshotTransaction.execute(status -> loansRepository.findByUserId(userId));
+                    sink.send(eventId(start), "snapshot", new LoanSnapshot(start, loans));
+                } else {
+                    sink.send(eventId(start), "reset", start);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            subscription.disconnect();
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            return subscription;
+        }
+        subscription.start();
+        return subscription;
+    }
+
+    /**
+     * Keep idle streams open through proxies and find subscribers that went away. Closes every
+     * stream once this instance has lost the feed lease.
+     */
+    @Scheduled(fixedDelayString = "${loan.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        boolean held = serving.getAsBoolean();
+        for (Subscription subscription : subscriptions) {
+            if (held) {
+                subscription.heartbeat();
+            } else {
+                subscription.disconnect();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.disconnect();
+        }
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private Long resumePoint(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        private final LoanChange change;
+        private final Long previousUserId;
+
+        private Entry(LoanChange change, Long previousUserId) {
+            this.change = change;
+            this.previousUserId = previousUserId;
+        }
+    }
+
+    final class Subscription {
+
+        private final FeedSink sink;
+        private final Long userId;
+        private final BlockingQueue<LoanChange> queue;
+        // Set while a drain is queued or running; starts set so nothing is sent before the snapshot
+        private final AtomicBoolean scheduled = new AtomicBoolean(true);
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private long replayNext;  // Retained changes still to send on resume, only touched by the drain
+        private long replayEnd;
+
+        private Subscription(FeedSink sink, Long userId, int capacity) {
+            this.sink = sink;
+            this.userId = userId;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private boolean matches(Entry entry) {
+            return userId == null
+                    || userId.equals(entry.change.getLoan().getUserId())
+                    || userId.equals(entry.previousUserId);
+        }
+
+        private void enqueue(LoanChange change) {
+            if (overflowed) {
+                return;
+            }
+            if (!queue.offer(change)) {
+                logger.info("Disconnecting a change feed subscriber {} changes behind", queue.size());
+                overflow();
+            }
+            schedule();
+        }
+
+        private void overflow() {
+            if (!overflowed) {
+                overflowed = true;
+                dropped.increment();
+            }
+        }
+
+        private void start() {
+            scheduled.set(false);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (replayNext > 0 && replayNext <= replayEnd && !overflowed && !cancelled.get()) {
+                    Entry entry;
+                    synchronized (lock) {
+                        entry = ring[(int) (replayNext % ring.length)];
+                    }
+                    if (entry == null || entry.change.getSequence() != replayNext) {
+                        overflow();  // Overwritten while replaying; the next connection starts from a snapshot
+                        break;
+                    }
+                    if (matches(entry)) {
+                        send(entry.change);
+                    }
+                    replayNext++;
+                }
+                LoanChange change;
+                while (!overflowed && !cancelled.get() && (change = queue.poll()) != null) {
+                    send(change);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Change feed subscriber went away: {}", e.getMessage());
+                cancel();
+            }
+            if (overflowed || cancelled.get()) {
+                disconnect();
+                return;
+            }
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send(LoanChange change) throws IOException {
+            sink.send(eventId(change.getSequence()), change.getEventType(), change);
+        }
+
+        private void heartbeat() {
+            if (scheduled.get()) {
+                return;  // Busy sending, so not idle
+            }
+            try {
+                sink.heartbeat();
+            } catch (IOException | RuntimeException e) {
+                disconnect();
+            }
+        }
+
+        /**
+         * Stop delivering to this subscriber. Safe to call more than once.
+         */
+        void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                subscribers.decrementAndGet();
+            }
+        }
+
+        private void disconnect() {
+            cancel();
+            queue.clear();
+            if (closed.compareAndSet(false, true)) {
+                sink.close();
+            }
+        }
+    }
+
+    private static final class SseFeedSink implements FeedSink {
+
+        private final SseEmitter emitter;
+
+        private SseFeedSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(String id, String name, Object data) throws IOException {
+            emitter.send(SseEmitter.event().id(id).name(name).data(data));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+
+    private static final class SenderThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "loan-feed-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
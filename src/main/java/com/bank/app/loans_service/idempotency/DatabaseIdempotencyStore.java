@@ -0,0 +1,210 @@
+package com.bank.app.loans_service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Stores responses in {@code loan_idempotency_keys} so duplicates are recognised by every instance.
+ * A request claims its key by inserting an unfinished row; a duplicate on another instance polls
+ * that row until the response is stored. Duplicates on the same instance wait on the original
+ * execution directly instead of polling. An unfinished claim older than {@code loan.idempotency.claim-timeout}
+ * is taken to belong to an instance that died mid-request and is taken over. Expired rows are purged on a schedule.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotencyStore.class);
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration claimTimeout;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DatabaseIdempotencyStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                    @Value("${loan.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${loan.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+                                    @Value("${loan.idempotency.claim-timeout:PT5M}") Duration claimTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, String fingerprint, TypeReference<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (!running.fingerprint().equals(fingerprint)) {
+                return IdempotentResponses.keyReused();
+            }
+            ResponseEntity<?> original = awaitLocal(running);
+            return original == null ? IdempotentResponses.stillRunning()
+                    : IdempotentResponses.replayed(original.getStatusCode(), (T) original.getBody());
+        }
+        try {
+            ResponseEntity<T> response = executeOnce(key, fingerprint, bodyType, action, Instant.now().plus(waitTimeout));
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private <T> ResponseEntity<T> executeOnce(String key, String fingerprint, TypeReference<T> bodyType,
+                                              Supplier<ResponseEntity<T>> action, Instant deadline) {
+        while (true) {
+            Instant now = Instant.now();
+            try {
+                jdbcTemplate.update("INSERT INTO loan_idempotency_keys (idempotency_key, fingerprint, completed, created_at, expires_at) "
+                        + "VALUES (?, ?, FALSE, ?, ?)", key, fingerprint, Timestamp.from(now), Timestamp.from(now.plus(ttl)));
+            } catch (DuplicateKeyException claimed) {
+                Stored stored = find(key);
+                if (stored == null) {
+                    continue;  // The original failed and released the key, claim it again
+                }
+                if (stored.expiresAt().isBefore(now)) {
+                    jdbcTemplate.update("DELETE FROM loan_idempotency_keys WHERE idempotency_key = ? AND expires_at < ?",
+                            key, Timestamp.from(now));
+                    continue;
+                }
+                if (!stored.completed() && stored.createdAt().plus(claimTimeout).isBefore(now)) {
+                    logger.warn("Taking over abandoned idempotency key: {}", key);
+                    jdbcTemplate.update("DELETE FROM loan_idempotency_keys WHERE idempotency_key = ? AND completed = FALSE AND created_at < ?",
+                            key, Timestamp.from(now.minus(claimTimeout)));
+                    continue;
+                }
+                if (!stored.fingerprint().equals(fingerprint)) {
+                    return IdempotentResponses.keyReused();
+                }
+                if (stored.completed()) {
+                    return IdempotentResponses.replayed(HttpStatusCode.valueOf(stored.statusCode()), decode(stored.body(), bodyType));
+                }
+                if (Instant.now().isAfter(deadline)) {
+                    return IdempotentResponses.stillRunning();
+                }
+                sleep();
+                continue;
+            }
+            return runClaimed(key, action);
+        }
+    }
+
+    private <T> ResponseEntity<T> runClaimed(String key, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        if (!IdempotentResponses.isStored(response.getStatusCode())) {
+            release(key);
+            return response;
+        }
+        try {
+            jdbcTemplate.update("UPDATE loan_idempotency_keys SET completed = TRUE, status_code = ?, response_body = ? WHERE idempotency_key = ?",
+                    response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()), key);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The request itself succeeded; losing the stored response only weakens deduplication
+            logger.error("Could not store response for idempotency key: {}", key, e);
+            release(key);
+        }
+        return response;
+    }
+
+    /**
+     * Deletes stored responses past their time to live.
+     */
+    @Scheduled(fixedDelayString = "${loan.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM loan_idempotency_keys WHERE expires_at < ?", Timestamp.from(Instant.now()));
+        logger.debug("Purged {} expired idempotency keys", purged);
+    }
+
+    private void release(String key) {
+        jdbcTemplate.update("DELETE FROM loan_idempotency_keys WHERE idempotency_key = ? AND completed = FALSE", key);
+    }
+
+    private Stored find(String key) {
+        List<Stored> rows = jdbcTemplate.query(
+                "SELECT fingerprint, completed, status_code, response_body, created_at, expires_at FROM loan_idempotency_keys WHERE idempotency_key = ?",
+                (rs, rowNum) -> new Stored(rs.getString(1), rs.getBoolean(2), rs.getInt(3), rs.getString(4),
+                        rs.getTimestamp(5).toInstant(), rs.getTimestamp(6).toInstant()),
+                key);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private <T> T decode(String body, TypeReference<T> bodyType) {
+        try {
+            return body == null ? null : objectMapper.readValue(body, bodyType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not decode stored idempotent response", e);
+        }
+    }
+
+    private ResponseEntity<?> awaitLocal(InFlight running) {
+        try {
+            return running.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        }
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<ResponseEntity<?>> response) {
+    }
+
+    private record Stored(String fingerprint, boolean completed, int statusCode, String body, Instant createdAt, Instant expiresAt) {
+    }
+}
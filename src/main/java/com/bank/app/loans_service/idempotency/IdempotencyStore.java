@@ -0,0 +1,28 @@
+package com.bank.app.loans_service.idempotency;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates write requests carrying an {@code Idempotency-Key} header. The first request with a
+ * key runs; concurrent duplicates wait for it and later duplicates get its stored response back,
+ * marked with {@code Idempotent-Replayed: true}. Reusing a key for a different request is refused
+ * with 422, and 5xx or 409 responses are not kept so the client can retry them.
+ */
+public interface IdempotencyStore {
+
+    String HEADER = "Idempotency-Key";
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Run a request at most once per key.
+     * @param key The client supplied idempotency key.
+     * @param fingerprint Identifies the request the key was first used with, see {@link IdempotentResponses#fingerprint}.
+     * @param bodyType The response body type, used when a stored response has to be decoded.
+     * @param action Executes the request.
+     * @return The response of this execution or of the original one.
+     */
+    <T> ResponseEntity<T> execute(String key, String fingerprint, TypeReference<T> bodyType, Supplier<ResponseEntity<T>> action);
+}
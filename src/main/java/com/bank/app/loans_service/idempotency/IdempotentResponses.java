@@ -0,0 +1,64 @@
+package com.bank.app.loans_service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Helpers shared by the {@link IdempotencyStore} implementations.
+ */
+public final class IdempotentResponses {
+
+    private IdempotentResponses() {
+    }
+
+    /**
+     * Hash an operation and its arguments, so a key reused for a different request can be detected.
+     * Must be taken before the request runs, as the service fills in fields of the submitted loan.
+     * @param objectMapper Serializes the arguments.
+     * @param operation The endpoint, e.g. {@code repay}.
+     * @param arguments Path variables, parameters and body.
+     * @return A hex encoded SHA-256 digest.
+     */
+    public static String fingerprint(ObjectMapper objectMapper, String operation, Object... arguments) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            for (Object argument : arguments) {
+                digest.update((byte) 0);
+                digest.update(objectMapper.writeValueAsBytes(argument));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not fingerprint " + operation + " request", e);
+        }
+    }
+
+    /**
+     * @param status The response status.
+     * @return Whether a response with this status is stored and replayed.
+     */
+    static boolean isStored(HttpStatusCode status) {
+        return !status.is5xxServerError() && status.value() != HttpStatus.CONFLICT.value()
+                && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    static <T> ResponseEntity<T> replayed(HttpStatusCode status, T body) {
+        return ResponseEntity.status(status).header(IdempotencyStore.REPLAYED_HEADER, "true").body(body);
+    }
+
+    static <T> ResponseEntity<T> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+    }
+
+    static <T> ResponseEntity<T> stillRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
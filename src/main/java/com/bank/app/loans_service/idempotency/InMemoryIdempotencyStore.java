@@ -0,0 +1,93 @@
+package com.bank.app.loans_service.idempotency;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps responses in a bounded cache that evicts them {@code loan.idempotency.ttl} after they were
+ * stored. Keys are only known to the instance that served them, so retries must reach the same
+ * instance; use the {@code database} store otherwise.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> entries;
+    private final Duration waitTimeout;
+
+    @Autowired
+    public InMemoryIdempotencyStore(@Value("${loan.idempotency.maximum-size:100000}") long maximumSize,
+                                    @Value("${loan.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${loan.idempotency.wait-timeout:PT10S}") Duration waitTimeout) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, String fingerprint, TypeReference<T> bodyType, Supplier<ResponseEntity<T>> action) {
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(fingerprint)) {
+                return IdempotentResponses.keyReused();
+            }
+            ResponseEntity<?> original = await(existing);
+            return original == null ? IdempotentResponses.stillRunning()
+                    : IdempotentResponses.replayed(original.getStatusCode(), (T) original.getBody());
+        }
+
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.asMap().remove(key, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+        if (!IdempotentResponses.isStored(response.getStatusCode())) {
+            entries.asMap().remove(key, mine);
+        }
+        mine.response().complete(response);
+        return response;
+    }
+
+    /**
+     * Wait for the original execution.
+     * @return Its response, or null if it is still running after the wait timeout.
+     */
+    private ResponseEntity<?> await(Entry entry) {
+        try {
+            return entry.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<ResponseEntity<?>> response) {
+    }
+}
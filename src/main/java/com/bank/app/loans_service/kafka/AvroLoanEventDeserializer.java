@@ -0,0 +1,70 @@
+package com.bank.app.loans_service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads values written by {@link AvroLoanEventSerializer}. The writer schema is resolved from the
+ * id in the record and resolved against the reader's own schema, so records written by an older or
+ * newer version of the event class still decode as long as the change is Avro compatible.
+ * @param <T> The event type to read.
+ */
+public class AvroLoanEventDeserializer<T> implements Deserializer<T> {
+
+    private final InMemorySchemaRegistry schemaRegistry;
+    private final AvroMapper avroMapper;
+    private final Class<T> type;
+    private final Map<Integer, ObjectReader> readers = new ConcurrentHashMap<>();
+    private volatile AvroSchema readerSchema;
+
+    public AvroLoanEventDeserializer(InMemorySchemaRegistry schemaRegistry, Class<T> type) {
+        this.schemaRegistry = schemaRegistry;
+        this.avroMapper = AvroLoanEventSerializer.newAvroMapper();
+        this.type = type;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < 5 || data[0] != AvroLoanEventSerializer.MAGIC_BYTE) {
+            throw new SerializationException("Not an Avro encoded loan event on topic " + topic);
+        }
+        int schemaId = ((data[1] & 0xff) << 24) | ((data[2] & 0xff) << 16) | ((data[3] & 0xff) << 8) | (data[4] & 0xff);
+        try {
+            return readers.computeIfAbsent(schemaId, this::newReader).readValue(data, 5, data.length - 5);
+        } catch (IOException e) {
+            throw new SerializationException("Could not decode Avro record with schema id " + schemaId, e);
+        }
+    }
+
+    private ObjectReader newReader(int schemaId) {
+        AvroSchema writerSchema = new AvroSchema(schemaRegistry.getById(schemaId).schema());
+        try {
+            return avroMapper.readerFor(type).with(writerSchema.withReaderSchema(readerSchema()));
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Writer schema id " + schemaId + " cannot be resolved against the schema of "
+                    + type.getName(), e);
+        }
+    }
+
+    private AvroSchema readerSchema() {
+        if (readerSchema == null) {
+            try {
+                readerSchema = avroMapper.schemaFor(type);
+            } catch (IOException e) {
+                throw new SerializationException("Could not derive an Avro schema for " + type.getName(), e);
+            }
+        }
+        return readerSchema;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.app.loans_service.kafka;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local stand-in for a schema registry. Schemas are versioned per subject
+ * ({@code <topic>-value}) and identified by a global id that is written in front of every
+ * Avro encoded record. Registering a schema whose canonical form is already known returns the
+ * existing id, so ids stay stable while the event classes do not change.
+ */
+@Component
+public class InMemorySchemaRegistry {
+
+    private final Map<String, List<RegisteredSchema>> subjects = new ConcurrentHashMap<>();
+    private final Map<Integer, RegisteredSchema> schemasById = new ConcurrentHashMap<>();
+    private final Map<String, RegisteredSchema> schemasByCanonicalForm = new ConcurrentHashMap<>();
+    private int nextId = 1;
+
+    /**
+     * Register a schema under a subject, adding a new version if it differs from the known ones.
+     * @param subject The subject, usually {@code <topic>-value}.
+     * @param schema The writer schema.
+     * @return The registered schema with its id and version.
+     */
+    public synchronized RegisteredSchema register(String subject, Schema schema) {
+        String canonicalForm = subject + "|" + SchemaNormalization.toParsingForm(schema);
+        RegisteredSchema existing = schemasByCanonicalForm.get(canonicalForm);
+        if (existing != null) {
+            return existing;
+        }
+        List<RegisteredSchema> versions = subjects.computeIfAbsent(subject, key -> new ArrayList<>());
+        RegisteredSchema registered = new RegisteredSchema(nextId++, subject, versions.size() + 1, schema);
+        versions.add(registered);
+        schemasById.put(registered.id(), registered);
+        schemasByCanonicalForm.put(canonicalForm, registered);
+        return registered;
+    }
+
+    /**
+     * Look up a schema by the id found in a record.
+     * @param id The schema id.
+     * @return The registered schema.
+     * @throws IllegalArgumentException If the id is unknown.
+     */
+    public RegisteredSchema getById(int id) {
+        RegisteredSchema schema = schemasById.get(id);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown schema id: " + id);
+        }
+        return schema;
+    }
+
+    /**
+     * Return the latest version registered for a subject.
+     * @param subject The subject.
+     * @return The latest schema, or null if none is registered.
+     */
+    public synchronized RegisteredSchema latest(String subject) {
+        List<RegisteredSchema> versions = subjects.get(subject);
+        return versions == null || versions.isEmpty() ? null : versions.get(versions.size() - 1);
+    }
+
+    public record RegisteredSchema(int id, String subject, int version, Schema schema) {
+    }
+}
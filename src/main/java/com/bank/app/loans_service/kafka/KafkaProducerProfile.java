@@ -0,0 +1,48 @@
+package com.bank.app.loans_service.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Producer tunings selectable with {@code loan.kafka.producer.profile}. Both profiles are
+ * idempotent with {@code acks=all}, so retries never duplicate or reorder records of one key;
+ * they differ only in how long the producer waits to fill a batch and whether batches are compressed.
+ */
+public enum KafkaProducerProfile {
+
+    /**
+     * Send as soon as a record is available. Suits low, latency-sensitive traffic.
+     */
+    LOW_LATENCY(0, 16 * 1024, "none"),
+
+    /**
+     * Linger briefly to build large lz4-compressed batches. Suits bulk issuance and the accrual job.
+     */
+    HIGH_THROUGHPUT(20, 256 * 1024, "lz4");
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+
+    KafkaProducerProfile(int lingerMs, int batchSize, String compressionType) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+    }
+
+    /**
+     * @return The producer settings of this profile.
+     */
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        settings.put(ProducerConfig.ACKS_CONFIG, "all");
+        settings.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        settings.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        settings.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        settings.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return settings;
+    }
+}
@@ -0,0 +1,9 @@
+package com.bank.app.loans_service.kafka;
+
+/**
+ * Wire formats available for Kafka record values.
+ */
+public enum SerializationFormat {
+    JSON,  // Spring JsonSerializer with type headers
+    AVRO   // Schema id prefixed Avro binary
+}
@@ -0,0 +1,53 @@
+package com.bank.app.loans_service.kafka;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Value serializer that picks a delegate by topic, so each topic can keep the format its
+ * consumers understand while others move to a compact encoding.
+ */
+public class TopicRoutingSerializer implements Serializer<Object> {
+
+    private final Map<String, Serializer<Object>> serializersByTopic;
+    private final Serializer<Object> defaultSerializer;
+
+    public TopicRoutingSerializer(Map<String, Serializer<Object>> serializersByTopic, Serializer<Object> defaultSerializer) {
+        this.serializersByTopic = Map.copyOf(serializersByTopic);
+        this.defaultSerializer = defaultSerializer;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegates().forEach(serializer -> serializer.configure(configs, isKey));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serializerFor(topic).serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        return serializerFor(topic).serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        delegates().forEach(Serializer::close);
+    }
+
+    private Serializer<Object> serializerFor(String topic) {
+        return serializersByTopic.getOrDefault(topic, defaultSerializer);
+    }
+
+    private Set<Serializer<Object>> delegates() {
+        Set<Serializer<Object>> delegates = new HashSet<>(serializersByTopic.values());
+        delegates.add(defaultSerializer);
+        return delegates;
+    }
+}
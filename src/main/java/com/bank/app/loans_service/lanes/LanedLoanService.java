@@ -0,0 +1,104 @@
+package com.bank.app.loans_service.lanes;
+
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.LoanBatchItemResult;
+import com.bank.app.loans_service.dto.LoanPage;
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.exception.ResourceNotFoundException;
+import com.bank.app.loans_service.service.Impl.LoanServiceImpl;
+import com.bank.app.loans_service.service.LoanService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs changes to existing loans on {@link LoanWriteLanes} when {@code loan.execution.lanes.enabled=true}.
+ * Reads and new loans, which have no id to order by yet, go straight to {@link LoanServiceImpl}.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "loan.execution.lanes.enabled", havingValue = "true")
+public class LanedLoanService implements LoanService {
+
+    private final LoanServiceImpl delegate;
+    private final LoanWriteLanes lanes;
+
+    @Autowired
+    public LanedLoanService(LoanServiceImpl delegate, LoanWriteLanes lanes) {
+        this.delegate = delegate;
+        this.lanes = lanes;
+    }
+
+    @Override
+    public Loan issueLoan(Loan loan) {
+        return delegate.issueLoan(loan);
+    }
+
+    @Override
+    public List<LoanBatchItemResult> issueLoans(List<Loan> loans) {
+        return delegate.issueLoans(loans);
+    }
+
+    @Override
+    public List<Loan> getLoansByUserId(Long userId) {
+        return delegate.getLoansByUserId(userId);
+    }
+
+    @Override
+    public LoanPage getLoanPageByUserId(Long userId, Long after, int limit) {
+        return delegate.getLoanPageByUserId(userId, after, limit);
+    }
+
+    @Override
+    public LoanPage searchLoans(LoanSearchCriteria criteria, Long after, int limit) {
+        return delegate.searchLoans(criteria, after, limit);
+    }
+
+    @Override
+    public long countLoansDue(LoanStatus status, LocalDate from, LocalDate to) {
+        return delegate.countLoansDue(status, from, to);
+    }
+
+    @Override
+    public void streamLoansByUserId(Long userId, Consumer<LoanSummary> sink) {
+        delegate.streamLoansByUserId(userId, sink);
+    }
+
+    @Override
+    public AmortizationSchedule getLoanSchedule(Long loanId) throws ResourceNotFoundException {
+        return delegate.getLoanSchedule(loanId);
+    }
+
+    @Override
+    public Loan updateLoanStatus(Long loanId, LoanStatus newStatus) {
+        return lanes.execute(loanId, () -> delegate.updateLoanStatus(loanId, newStatus));
+    }
+
+    @Override
+    public Loan repayLoan(Long loanId, BigDecimal paymentAmount) {
+        return lanes.execute(loanId, () -> delegate.repayLoan(loanId, paymentAmount));
+    }
+
+    @Override
+    public Loan updateLoan(Loan loan) throws ResourceNotFoundException {
+        if (loan.getId() == null) {
+            return delegate.updateLoan(loan);
+        }
+        return lanes.execute(loan.getId(), () -> delegate.updateLoan(loan));
+    }
+
+    @Override
+    public Loan patchLoan(Long loanId, Long expectedVersion, LoanPatch patch) throws ResourceNotFoundException {
+        return lanes.execute(loanId, () -> delegate.patchLoan(loanId, expectedVersion, patch));
+    }
+}
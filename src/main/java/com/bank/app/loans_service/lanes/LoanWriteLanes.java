@@ -0,0 +1,212 @@
+package com.bank.app.loans_service.lanes;
+
+import com.bank.app.loans_service.exception.WriteLaneFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-threaded lanes that run loan writes, chosen by hashing the loan id. All writes to a loan
+ * run one at a time in arrival order without database locks, so their outbox events are committed,
+ * and published, in that order.
+ * <p>
+ * A lane takes up to {@code loan.execution.lanes.max-batch} queued writes and commits them in one
+ * transaction. If that transaction fails, for example because one write threw or a repayment hit
+ * a version conflict from another instance, it is rolled back and every write is rerun in its own
+ * transaction. The usual repayment retries then apply and a failure only reaches its own caller.
+ * A lane whose queue is full rejects the write with {@link WriteLaneFullException} instead of
+ * queueing it.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.execution.lanes.enabled", havingValue = "true")
+public class LoanWriteLanes {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanWriteLanes.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final Lane[] lanes;
+    private volatile boolean running = true;
+
+    @Autowired
+    public LoanWriteLanes(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                          @Value("${loan.execution.lanes.count:16}") int laneCount,
+                          @Value("${loan.execution.lanes.queue-capacity:1000}") int queueCapacity,
+                          @Value("${loan.execution.lanes.max-batch:32}") int maxBatch) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxBatch = maxBatch;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, queueCapacity, meterRegistry);
+        }
+        logger.info("Running loan writes on {} lanes", laneCount);
+    }
+
+    /**
+     * Run a write on the loan's lane and wait for it to commit.
+     * @param loanId The ID of the loan the write changes.
+     * @param write The write; it joins the lane's transaction.
+     * @return The write's result.
+     * @throws WriteLaneFullException if the lane already has {@code queue-capacity} writes waiting.
+     */
+    public <T> T execute(Long loanId, Supplier<T> write) {
+        Lane lane = lanes[Math.floorMod(Long.hashCode(loanId), lanes.length)];
+        Write<T> task = new Write<>(write);
+        if (!running || !lane.queue.offer(task)) {
+            lane.rejected.increment();
+            throw new WriteLaneFullException("Write lane " + lane.index + " is full");
+        }
+        try {
+            return task.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Lane lane : lanes) {
+            lane.thread.interrupt();
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<Write<?>> queue;
+        private final Thread thread;
+        private final Counter rejected;
+        private final Counter replayed;
+        private final Timer waitTimer;
+        private final DistributionSummary batchSize;
+
+        private Lane(int index, int queueCapacity, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            String lane = String.valueOf(index);
+            Gauge.builder("loan.lanes.queued", queue, BlockingQueue::size)
+                    .description("Writes waiting on the lane")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("loan.lanes.rejected")
+                    .description("Writes rejected because the lane was full")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.replayed = Counter.builder("loan.lanes.batch.replayed")
+                    .description("Batches rolled back and rerun one write per transaction")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("loan.lanes.wait")
+                    .description("Time a write waited on the lane before it started")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.batchSize = DistributionSummary.builder("loan.lanes.batch.size")
+                    .description("Writes committed together")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            this.thread = new Thread(this, "loan-lane-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            List<Write<?>> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                long startedAt = System.nanoTime();
+                for (Write<?> write : batch) {
+                    waitTimer.record(startedAt - write.enqueuedAt, TimeUnit.NANOSECONDS);
+                }
+                batchSize.record(batch.size());
+                runBatch(batch);
+                batch.clear();
+            }
+            Write<?> abandoned;
+            while ((abandoned = queue.poll()) != null) {
+                abandoned.result.completeExceptionally(new WriteLaneFullException("Write lanes are shutting down"));
+            }
+        }
+
+        private void runBatch(List<Write<?>> batch) {
+            if (batch.size() == 1) {
+                batch.get(0).runAlone();
+                return;
+            }
+            List<Object> results = new ArrayList<>(batch.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Write<?> write : batch) {
+                        results.add(write.write.get());
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                replayed.increment();
+                logger.debug("Batch of {} writes on lane {} rolled back, running them one by one", batch.size(), index, e);
+                for (Write<?> write : batch) {
+                    write.runAlone();
+                }
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+        }
+    }
+
+    private static final class Write<T> {
+
+        private final Supplier<T> write;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Write(Supplier<T> write) {
+            this.write = write;
+        }
+
+        private void runAlone() {
+            try {
+                result.complete(write.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+}
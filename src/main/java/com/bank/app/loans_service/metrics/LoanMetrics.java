@@ -0,0 +1,95 @@
+package com.bank.app.loans_service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the loan service hot paths. {@code loan.service} times each service operation as a
+ * whole ({@code phase=total}) and the parts spent in repository calls ({@code phase=repository})
+ * and building and queueing events ({@code phase=event}), all with percentile histograms.
+ * {@code loan.outcomes} counts business outcomes. Timers are cached per operation and phase so
+ * recording allocates nothing beyond the lambda.
+ */
+@Component
+public class LoanMetrics {
+
+    public static final String PHASE_TOTAL = "total";
+    public static final String PHASE_REPOSITORY = "repository";
+    public static final String PHASE_EVENT = "event";
+
+    public static final String OUTCOME_ISSUED = "issued";
+    public static final String OUTCOME_REPAID_TO_ZERO = "repaid_to_zero";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_CONFLICT = "conflict";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> outcomes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoanMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (String outcome : new String[]{OUTCOME_ISSUED, OUTCOME_REPAID_TO_ZERO, OUTCOME_NOT_FOUND, OUTCOME_CONFLICT}) {
+            outcomes.put(outcome, Counter.builder("loan.outcomes")
+                    .description("Loan operations by business outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Time a whole service operation.
+     * @param operation The service method name.
+     * @param body The operation.
+     * @return The operation's result.
+     */
+    public <T> T total(String operation, Supplier<T> body) {
+        return timer(operation, PHASE_TOTAL).record(body);
+    }
+
+    /**
+     * Time the repository part of a service operation.
+     * @param operation The service method name.
+     * @param body The repository call.
+     * @return The repository call's result.
+     */
+    public <T> T repository(String operation, Supplier<T> body) {
+        return timer(operation, PHASE_REPOSITORY).record(body);
+    }
+
+    /**
+     * Time building and queueing the events of a service operation.
+     * @param operation The service method name.
+     * @param body The producer call.
+     */
+    public void event(String operation, Runnable body) {
+        timer(operation, PHASE_EVENT).record(body);
+    }
+
+    /**
+     * Count a business outcome.
+     * @param outcome One of the {@code OUTCOME_} constants.
+     * @param amount How many times it occurred.
+     */
+    public void outcome(String outcome, long amount) {
+        if (amount > 0) {
+            outcomes.get(outcome).increment(amount);
+        }
+    }
+
+    private Timer timer(String operation, String phase) {
+        return timers.computeIfAbsent(operation + '.' + phase, key -> Timer.builder("loan.service")
+                .description("Time spent in loan service operations")
+                .tag("operation", operation)
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
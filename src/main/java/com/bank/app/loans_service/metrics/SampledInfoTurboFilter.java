@@ -0,0 +1,37 @@
+package com.bank.app.loans_service.metrics;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets through only a sample of the INFO events of the per-request loggers, before any message
+ * is formatted. WARN and ERROR are never sampled. Configured in {@code logback-spring.xml}:
+ * {@code loggers} lists the sampled logger names and {@code sampleRate} is the fraction kept (0 to 1).
+ */
+public class SampledInfoTurboFilter extends TurboFilter {
+
+    private Set<String> loggers = Set.of();
+    private double sampleRate = 0.01;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.INFO || !loggers.contains(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < sampleRate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggers(String loggers) {
+        this.loggers = Set.of(loggers.trim().split("\\s*,\\s*"));
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.entity.LoanAccrualCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LoanAccrualCheckpointRepository extends JpaRepository<LoanAccrualCheckpoint, String> {
+
+    /**
+     * Retrieve the partitions of an accrual run.
+     * @param runDate The business date of the run.
+     * @return The partitions in partition order.
+     */
+    List<LoanAccrualCheckpoint> findByRunDateOrderByPartitionNo(LocalDate runDate);
+}
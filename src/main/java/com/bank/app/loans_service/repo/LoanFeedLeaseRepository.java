@@ -0,0 +1,24 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.entity.LoanFeedLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LoanFeedLeaseRepository extends JpaRepository<LoanFeedLease, String> {
+
+    /**
+     * Retrieve a lease and lock its row until the transaction ends.
+     * @param name The name of the lease.
+     * @return The locked lease, if it exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoanFeedLease l WHERE l.name = :name")
+    Optional<LoanFeedLease> findForUpdate(@Param("name") String name);
+}
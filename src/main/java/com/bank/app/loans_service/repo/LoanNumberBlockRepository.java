@@ -0,0 +1,24 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.entity.LoanNumberBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LoanNumberBlockRepository extends JpaRepository<LoanNumberBlock, String> {
+
+    /**
+     * Retrieve a block counter and lock its row until the transaction ends.
+     * @param name The name of the generator.
+     * @return The locked counter, if it exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LoanNumberBlock b WHERE b.name = :name")
+    Optional<LoanNumberBlock> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,62 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.entity.LoanOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoanOutboxRepository extends JpaRepository<LoanOutboxEvent, Long> {
+
+    /**
+     * Lock the oldest pending outbox events that no relay holds a live claim on, skipping rows locked by
+     * another relay's claim.
+     * @param now The current time; claims that ended before it are void.
+     * @param pageable The maximum number of events to claim.
+     * @return The events in outbox order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM LoanOutboxEvent e WHERE e.claimedUntil IS NULL OR e.claimedUntil < :now ORDER BY e.id")
+    List<LoanOutboxEvent> findClaimable(@Param("now") Instant now, Pageable pageable);
+
+    /**
+     * Claim events for a relay until the given time, or release them with null.
+     * @param ids The events.
+     * @param claimedUntil The end of the claim, or null.
+     */
+    @Modifying
+    @Query("UPDATE LoanOutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+    void updateClaimedUntil(@Param("ids") Collection<Long> ids, @Param("claimedUntil") Instant claimedUntil);
+
+    /**
+     * Find, for each of the given loans, its first pending event other than the given ones. A relay
+     * may send a loan's event only when it precedes that one, which another relay holds or whose
+     * transaction committed after the claim.
+     * @param loanIds The loans to check.
+     * @param claimedIds The events claimed by the caller.
+     * @return Pairs of loan id and event id, for the loans that have such an event.
+     */
+    @Query("SELECT e.loanId, MIN(e.id) FROM LoanOutboxEvent e WHERE e.loanId IN :loanIds AND e.id NOT IN :claimedIds "
+            + "GROUP BY e.loanId")
+    List<Object[]> findFirstEventsElsewhere(@Param("loanIds") Collection<Long> loanIds,
+                                            @Param("claimedIds") Collection<Long> claimedIds);
+
+    /**
+     * Retrieve the creation time of the oldest pending event.
+     * @return The oldest creation time, or null if the outbox is empty.
+     */
+    @Query("SELECT MIN(e.createdAt) FROM LoanOutboxEvent e")
+    Instant findOldestCreatedAt();
+}
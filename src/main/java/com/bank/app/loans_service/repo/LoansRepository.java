@@ -1,13 +1,29 @@
 package com.bank.app.loans_service.repo;
 
+import com.bank.app.loans_service.dto.LoanSummary;
 import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface LoansRepository extends JpaRepository<Loan, Long> {
+public interface LoansRepository extends JpaRepository<Loan, Long>, LoansRepositoryCustom {
 
     /**
      * Retrieve loans by user ID.
@@ -15,4 +31,66 @@ public interface LoansRepository extends JpaRepository<Loan, Long> {
      * @return A list of loans belonging to the user.
      */
     List<Loan> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Retrieve one keyset page of a user's loans as projections, using the (user_id, id) index.
+     * @param userId The ID of the user.
+     * @param afterId Only loans with a greater ID are returned.
+     * @param pageable The page size; the offset is always 0.
+     * @return The loans in ID order.
+     */
+    List<LoanSummary> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Pageable pageable);
+
+    /**
+     * Stream all loans of a user as projections. Must be consumed inside a transaction and closed.
+     * @param userId The ID of the user.
+     * @return The loans in ID order.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<LoanSummary> streamByUserIdOrderByIdAsc(Long userId);
+
+    /**
+     * Retrieve a loan and lock its row until the transaction ends.
+     * @param loanId The ID of the loan.
+     * @return The locked loan, if it exists.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.id = :loanId")
+    Optional<Loan> findByIdForUpdate(@Param("loanId") Long loanId);
+
+    /**
+     * Atomically subtract a payment from the remaining balance, flooring it at zero, and close the
+     * loan when the balance reaches zero.
+     * @param loanId The ID of the loan.
+     * @param amount The amount to be paid.
+     * @return The number of rows updated; 0 if the loan does not exist or is already repaid.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    // loan_status is assigned first because MySQL evaluates later assignments against the updated balance
+    @Query(value = "UPDATE loans SET loan_status = CASE WHEN remaining_balance <= :amount " +
+            "THEN '" + LoanStatus.CLOSED_CODE + "' ELSE loan_status END, " +
+            "remaining_balance = GREATEST(remaining_balance - :amount, 0), version = version + 1 " +
+            "WHERE id = :loanId AND remaining_balance > 0", nativeQuery = true)
+    int decrementRemainingBalance(@Param("loanId") Long loanId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Count the loans in a status whose end date falls in a range, from the (loan_status, end_date)
+     * index alone.
+     * @param status The status.
+     * @param from The first end date, inclusive.
+     * @param to The last end date, inclusive.
+     * @return The number of loans.
+     */
+    default long countByStatusAndEndDateBetween(LoanStatus status, LocalDate from, LocalDate to) {
+        // Also match the legacy values so rows the status migration has not rewritten yet are counted
+        return countByStoredStatusAndEndDateBetween(status.storedValues(), from, to);
+    }
+
+    @Query(value = "SELECT COUNT(*) FROM loans WHERE loan_status IN (:statuses) AND end_date BETWEEN :from AND :to",
+            nativeQuery = true)
+    long countByStoredStatusAndEndDateBetween(@Param("statuses") Collection<String> statuses,
+                                              @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
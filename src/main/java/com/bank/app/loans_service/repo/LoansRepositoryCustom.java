@@ -0,0 +1,31 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
+
+import java.util.List;
+
+/**
+ * Queries of {@link LoansRepository} that are built at runtime.
+ */
+public interface LoansRepositoryCustom {
+
+    /**
+     * Apply a merge patch with one UPDATE of the patched columns, bumping the version. The loan is not read first.
+     * @param loanId The ID of the loan.
+     * @param expectedVersion Only update the loan at this version, or null to update any version.
+     * @param patch The columns to set.
+     * @return The number of rows updated; 0 if the loan does not exist or is at another version.
+     */
+    int applyPatch(Long loanId, Long expectedVersion, LoanPatch patch);
+
+    /**
+     * Retrieve one keyset page of the loans matching every set criterion, as projections.
+     * @param criteria The filters.
+     * @param afterId Only loans with a greater ID are returned, or null for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return The loans in ID order.
+     */
+    List<LoanSummary> search(LoanSearchCriteria criteria, Long afterId, int limit);
+}
@@ -0,0 +1,131 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.Value;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class LoansRepositoryImpl implements LoansRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int applyPatch(Long loanId, Long expectedVersion, LoanPatch patch) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Loan> update = cb.createCriteriaUpdate(Loan.class);
+        Root<Loan> loan = update.from(Loan.class);
+        patch.getValues().forEach((attribute, value) -> {
+            if (value == null) {
+                clear(cb, update, loan.get(attribute), patch.typeOf(attribute));
+            } else {
+                update.set(attribute, value);
+            }
+        });
+        Path<Long> version = loan.get("version");
+        update.set(version, cb.sum(version, cb.literal(1L)));
+        update.where(expectedVersion == null
+                ? cb.equal(loan.get("id"), loanId)
+                : cb.and(cb.equal(loan.get("id"), loanId), cb.equal(version, expectedVersion)));
+
+        // The bulk update bypasses the persistence context: write out pending changes of other loans in the
+        // transaction first, then drop the stale copies
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    private static <Y> void clear(CriteriaBuilder cb, CriteriaUpdate<Loan> update, Path<Y> path, Class<Y> type) {
+        update.set(path, cb.nullLiteral(type));
+    }
+
+    @Override
+    public List<LoanSummary> search(LoanSearchCriteria criteria, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Loan> loan = query.from(Loan.class);
+
+        // Equality on user, status and type lets the database use the composite indexes declared on Loan
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getUserId() != null) {
+            predicates.add(cb.equal(loan.get("userId"), criteria.getUserId()));
+        }
+        if (criteria.getLoanStatus() != null) {
+            // Compared on the raw column so rows the status migration has not rewritten yet match too
+            predicates.add(loan.get("storedLoanStatus").in(criteria.getLoanStatus().storedValues()));
+        }
+        if (criteria.getLoanType() != null) {
+            predicates.add(cb.equal(loan.get("loanType"), criteria.getLoanType()));
+        }
+        if (criteria.getLoanNumber() != null) {
+            predicates.add(cb.equal(loan.get("loanNumber"), criteria.getLoanNumber()));
+        }
+        addRange(cb, predicates, loan.get("startDate"), criteria.getStartDateFrom(), criteria.getStartDateTo());
+        addRange(cb, predicates, loan.get("endDate"), criteria.getEndDateFrom(), criteria.getEndDateTo());
+        addRange(cb, predicates, loan.get("remainingBalance"), criteria.getMinBalance(), criteria.getMaxBalance());
+        if (afterId != null) {
+            predicates.add(cb.greaterThan(loan.get("id"), afterId));
+        }
+
+        query.multiselect(loan.get("id"), loan.get("loanNumber"), loan.get("loanType"), loan.get("loanAmount"),
+                        loan.get("interestRate"), loan.get("remainingBalance"), loan.get("loanStatus"),
+                        loan.get("startDate"), loan.get("endDate"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(loan.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList()
+                .stream()
+                .<LoanSummary>map(SummaryRow::of)
+                .toList();
+    }
+
+    private static <Y extends Comparable<? super Y>> void addRange(CriteriaBuilder cb, List<Predicate> predicates,
+                                                                  Path<Y> path, Y from, Y to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(path, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThanOrEqualTo(path, to));
+        }
+    }
+
+    @Value
+    private static class SummaryRow implements LoanSummary {
+        Long id;
+        String loanNumber;
+        LoanType loanType;
+        BigDecimal loanAmount;
+        BigDecimal interestRate;
+        BigDecimal remainingBalance;
+        LoanStatus loanStatus;
+        LocalDate startDate;
+        LocalDate endDate;
+
+        static SummaryRow of(Tuple row) {
+            return new SummaryRow(row.get(0, Long.class), row.get(1, String.class), row.get(2, LoanType.class),
+                    row.get(3, BigDecimal.class), row.get(4, BigDecimal.class), row.get(5, BigDecimal.class),
+                    row.get(6, LoanStatus.class), row.get(7, LocalDate.class), row.get(8, LocalDate.class));
+        }
+    }
+}
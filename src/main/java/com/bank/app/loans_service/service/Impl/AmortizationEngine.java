@@ -0,0 +1,198 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.Installment;
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Computes repayment schedules. All arithmetic runs on {@code long} minor units (cents) with the
+ * annual rate scaled to 1/10000 of a percent, and every interest amount is the exact product rounded
+ * half up to the cent, so a schedule costs no intermediate {@link BigDecimal}s; amounts are converted
+ * back only for the returned schedule. Only the installment of a reducing balance loan, which needs a
+ * power of the rate, is worked out once in {@link BigDecimal}. Schedules are cached by
+ * (principal, rate, tenure, method) since many loans share the same terms.
+ */
+@Component
+public class AmortizationEngine {
+
+    private static final int MONEY_SCALE = 2;
+    private static final int RATE_SCALE = 4;
+    private static final long RATE_UNITS_PER_MONTHLY_FRACTION = 12 * 100 * 10_000L;
+
+    private final Cache<ScheduleKey, AmortizationSchedule> schedules;
+
+    @Autowired
+    public AmortizationEngine(MeterRegistry meterRegistry,
+                              @Value("${loan.schedule.cache.maximum-size:10000}") long maximumSize) {
+        this.schedules = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build(), "amortizationSchedules");
+    }
+
+    /**
+     * Return the repayment schedule for a set of loan terms, computing it on first use.
+     * @param principal The loan amount.
+     * @param annualRate The annual interest rate in percent.
+     * @param tenureMonths The number of monthly installments.
+     * @param method How interest is charged.
+     * @return The shared, immutable schedule.
+     */
+    public AmortizationSchedule schedule(BigDecimal principal, BigDecimal annualRate, int tenureMonths, AmortizationMethod method) {
+        return schedules.get(key(principal, annualRate, tenureMonths, method), AmortizationEngine::compute);
+    }
+
+    /**
+     * Compute the total of all installments without building or caching the schedule.
+     * @param principal The loan amount.
+     * @param annualRate The annual interest rate in percent.
+     * @param tenureMonths The number of monthly installments.
+     * @param method How interest is charged.
+     * @return Principal plus total interest.
+     */
+    public BigDecimal totalPayable(BigDecimal principal, BigDecimal annualRate, int tenureMonths, AmortizationMethod method) {
+        ScheduleKey key = key(principal, annualRate, tenureMonths, method);
+        AmortizationSchedule cached = schedules.getIfPresent(key);
+        if (cached != null) {
+            return cached.getTotalPayable();
+        }
+        return money(key.principalCents() + amortize(key, null));
+    }
+
+    static AmortizationSchedule compute(ScheduleKey key) {
+        List<Installment> installments = new ArrayList<>(key.tenureMonths());
+        long totalInterest = amortize(key, installments);
+        return new AmortizationSchedule(key.method(), money(key.principalCents()),
+                BigDecimal.valueOf(key.rateUnits(), RATE_SCALE).stripTrailingZeros(), key.tenureMonths(),
+                money(totalInterest), money(key.principalCents() + totalInterest),
+                Collections.unmodifiableList(installments));
+    }
+
+    /**
+     * Walk the schedule month by month.
+     * @param key The loan terms.
+     * @param out Receives each installment, or null to only total the interest.
+     * @return The total interest in cents.
+     */
+    private static long amortize(ScheduleKey key, List<Installment> out) {
+        int months = key.tenureMonths();
+        long principal = key.principalCents();
+        long rateUnits = key.rateUnits();
+        long balance = principal;
+        long totalInterest = 0;
+
+        switch (key.method()) {
+            case REDUCING_BALANCE -> {
+                long emi = rateUnits == 0 ? principal / months : emi(principal, rateUnits, months);
+                for (int month = 1; month <= months; month++) {
+                    long interest = monthlyInterest(balance, rateUnits);
+                    long principalPart = month == months ? balance : Math.min(emi - interest, balance);
+                    balance -= principalPart;
+                    totalInterest += interest;
+                    emit(out, month, principalPart, interest, balance);
+                }
+            }
+            case FLAT -> {
+                long flatInterest = multiplyDivideHalfUp(principal, rateUnits * months, RATE_UNITS_PER_MONTHLY_FRACTION);
+                long monthlyPrincipal = principal / months;
+                long monthlyInterest = flatInterest / months;
+                for (int month = 1; month <= months; month++) {
+                    boolean last = month == months;
+                    long principalPart = last ? balance : monthlyPrincipal;
+                    long interest = last ? flatInterest - totalInterest : monthlyInterest;
+                    balance -= principalPart;
+                    totalInterest += interest;
+                    emit(out, month, principalPart, interest, balance);
+                }
+            }
+            case INTEREST_ONLY -> {
+                long interest = monthlyInterest(principal, rateUnits);
+                for (int month = 1; month <= months; month++) {
+                    long principalPart = month == months ? principal : 0;
+                    balance -= principalPart;
+                    totalInterest += interest;
+                    emit(out, month, principalPart, interest, balance);
+                }
+            }
+        }
+        return totalInterest;
+    }
+
+    /**
+     * @return One month's interest on a balance in cents, rounded half up.
+     */
+    static long monthlyInterest(long balanceCents, long rateUnits) {
+        return multiplyDivideHalfUp(balanceCents, rateUnits, RATE_UNITS_PER_MONTHLY_FRACTION);
+    }
+
+    /**
+     * The standard installment {@code P * r / (1 - (1 + r)^-n)} for a monthly rate {@code r}, worked
+     * out to 34 significant digits and rounded half up to the cent.
+     */
+    private static long emi(long principalCents, long rateUnits, int months) {
+        BigDecimal monthlyRate = BigDecimal.valueOf(rateUnits)
+                .divide(BigDecimal.valueOf(RATE_UNITS_PER_MONTHLY_FRACTION), MathContext.DECIMAL128);
+        BigDecimal growth = BigDecimal.ONE.add(monthlyRate).pow(months, MathContext.DECIMAL128);
+        return BigDecimal.valueOf(principalCents)
+                .multiply(monthlyRate)
+                .multiply(growth)
+                .divide(growth.subtract(BigDecimal.ONE), MathContext.DECIMAL128)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    /**
+     * @return {@code a * b / divisor} for non-negative operands, rounded half up. Falls back to
+     * {@link BigDecimal} only when the product does not fit in a {@code long}.
+     */
+    private static long multiplyDivideHalfUp(long a, long b, long divisor) {
+        long product = a * b;
+        if (Math.multiplyHigh(a, b) != 0 || product < 0) {
+            return BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(b))
+                    .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        long quotient = product / divisor;
+        return product % divisor * 2 >= divisor ? quotient + 1 : quotient;
+    }
+
+    private static void emit(List<Installment> out, int month, long principal, long interest, long balance) {
+        if (out != null) {
+            out.add(new Installment(month, money(principal + interest), money(principal), money(interest), money(balance)));
+        }
+    }
+
+    private static ScheduleKey key(BigDecimal principal, BigDecimal annualRate, int tenureMonths, AmortizationMethod method) {
+        if (tenureMonths <= 0) {
+            throw new IllegalArgumentException("Tenure must be positive: " + tenureMonths);
+        }
+        return new ScheduleKey(
+                principal.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                annualRate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                tenureMonths, method);
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    /**
+     * Loan terms in fixed-scale units: cents and 1/10000 of a percent.
+     */
+    record ScheduleKey(long principalCents, long rateUnits, int tenureMonths, AmortizationMethod method) {
+    }
+}
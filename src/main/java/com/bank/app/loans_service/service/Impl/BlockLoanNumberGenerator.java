@@ -0,0 +1,100 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.LoanNumberBlock;
+import com.bank.app.loans_service.repo.LoanNumberBlockRepository;
+import com.bank.app.loans_service.service.LoanNumberGenerator;
+import com.bank.app.loans_service.service.LoanNumbers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out loan numbers from contiguous ranges leased from the {@code loan_number_blocks} table.
+ * Numbers inside a leased block are claimed with a single atomic increment; the database is only
+ * touched once per {@code loan.number.block-size} numbers. Numbers left in a block when the
+ * instance stops are skipped, never reused.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.number.strategy", havingValue = "block")
+public class BlockLoanNumberGenerator implements LoanNumberGenerator {
+
+    private static final String BLOCK_NAME = "loan_number";
+    private static final int WIDTH = 12;
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockLoanNumberGenerator.class);
+
+    private final LoanNumberBlockRepository blockRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final int blockSize;
+    private final ReentrantLock leaseLock = new ReentrantLock();
+
+    private volatile Block block = new Block(0, 0);
+
+    @Autowired
+    public BlockLoanNumberGenerator(LoanNumberBlockRepository blockRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${loan.number.block-size:1000}") int blockSize) {
+        this.blockRepository = blockRepository;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String nextLoanNumber() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return LoanNumbers.format(value, WIDTH);
+            }
+            leaseLock.lock();
+            try {
+                if (block == current) {
+                    block = lease();
+                }
+            } finally {
+                leaseLock.unlock();
+            }
+        }
+    }
+
+    private Block lease() {
+        try {
+            return leaseTransaction.execute(status -> leaseBlock());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the counter row first; lease from it instead
+            return leaseTransaction.execute(status -> leaseBlock());
+        }
+    }
+
+    private Block leaseBlock() {
+        LoanNumberBlock counter = blockRepository.findForUpdate(BLOCK_NAME)
+                .orElseGet(() -> blockRepository.saveAndFlush(new LoanNumberBlock(BLOCK_NAME, 1L)));
+        long start = counter.getNextValue();
+        counter.setNextValue(start + blockSize);
+        logger.info("Leased loan number block [{}, {})", start, start + blockSize);
+        return new Block(start, start + blockSize);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanAccrualCheckpoint;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.repo.LoanAccrualCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nightly job that advances loans past their end date. The scheduled interest is already part of
+ * {@code remainingBalance} from issuance, so the job only accrues post-maturity interest, at the
+ * loan's own rate, on balances left unpaid after {@code endDate}. Those loans are flagged OVERDUE
+ * and, after {@code loan.accrual.default-after-days}, DEFAULTED.
+ * <p>
+ * The book is split into id ranges processed in parallel. Each range is read in keyset chunks over
+ * plain JDBC and written back with one batched, version-checked update per chunk. The chunk's events
+ * and its checkpoint are written in the same transaction, so a rerun for the same date resumes after
+ * the last committed chunk.
+ */
+@Component
+public class LoanAccrualJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanAccrualJob.class);
+    private static final BigDecimal DAYS_PER_YEAR = BigDecimal.valueOf(365);
+    private static final BigDecimal PERCENT = BigDecimal.valueOf(100);
+
+    private static final String OPEN_STATUSES = LoanStatus.sqlValues(LoanStatus.ACTIVE, LoanStatus.OVERDUE);
+    private static final String SELECT_CHUNK = "SELECT id, user_id, amount, loan_number, loan_type, interest_rate, "
+            + "amortization_method, tenure_months, start_date, end_date, remaining_balance, loan_status, "
+            + "last_accrual_date, version FROM loans "
+            + "WHERE id > ? AND id <= ? AND loan_status IN " + OPEN_STATUSES + " ORDER BY id LIMIT ?";
+    private static final String UPDATE_LOAN = "UPDATE loans SET remaining_balance = ?, loan_status = ?, "
+            + "last_accrual_date = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanAccrualCheckpointRepository checkpointRepository;
+    private final LoanEventProducer loanEventProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int partitions;
+    private final int chunkSize;
+    private final int defaultAfterDays;
+
+    @Autowired
+    public LoanAccrualJob(JdbcTemplate jdbcTemplate,
+                          LoanAccrualCheckpointRepository checkpointRepository,
+                          LoanEventProducer loanEventProducer,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${loan.accrual.enabled:false}") boolean enabled,
+                          @Value("${loan.accrual.partitions:4}") int partitions,
+                          @Value("${loan.accrual.chunk-size:1000}") int chunkSize,
+                          @Value("${loan.accrual.default-after-days:90}") int defaultAfterDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.loanEventProducer = loanEventProducer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.defaultAfterDays = defaultAfterDays;
+    }
+
+    /**
+     * Runs the accrual for today on the instance that has the job enabled.
+     */
+    @Scheduled(cron = "${loan.accrual.cron:0 30 1 * * *}")
+    public void runNightly() {
+        if (enabled) {
+            run(LocalDate.now());
+        }
+    }
+
+    /**
+     * Accrue and re-evaluate all open loans for a business date, resuming any unfinished partitions of
+     * an earlier run for the same date.
+     * @param runDate The business date to accrue up to.
+     * @return The number of loans updated by this invocation.
+     */
+    public long run(LocalDate runDate) {
+        List<LoanAccrualCheckpoint> checkpoints = checkpointRepository.findByRunDateOrderByPartitionNo(runDate);
+        if (checkpoints.isEmpty()) {
+            checkpoints = checkpointRepository.saveAll(planPartitions(runDate));
+        }
+        long began = System.nanoTime();
+        AtomicLong updated = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(partitions, checkpoints.size())));
+        try {
+            List<Future<?>> results = new ArrayList<>(checkpoints.size());
+            for (LoanAccrualCheckpoint checkpoint : checkpoints) {
+                if (!checkpoint.isCompleted()) {
+                    results.add(workers.submit(() -> updated.addAndGet(processPartition(checkpoint))));
+                }
+            }
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Accrual run interrupted", e);
+                } catch (Exception e) {
+                    logger.error("Accrual partition failed for {}, rerun to resume from its checkpoint", runDate, e);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        logger.info("Accrual for {} updated {} loans in {} ms", runDate, updated.get(), (System.nanoTime() - began) / 1_000_000);
+        return updated.get();
+    }
+
+    private List<LoanAccrualCheckpoint> planPartitions(LocalDate runDate) {
+        long[] bounds = jdbcTemplate.queryForObject(
+                "SELECT MIN(id), MAX(id) FROM loans WHERE loan_status IN " + OPEN_STATUSES,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        List<LoanAccrualCheckpoint> planned = new ArrayList<>(partitions);
+        if (bounds == null || bounds[1] == 0) {
+            return planned;
+        }
+        long lower = bounds[0] - 1;
+        long span = Math.max(1, (bounds[1] - lower + partitions - 1) / partitions);
+        for (int partition = 0; lower < bounds[1]; partition++) {
+            long upper = Math.min(bounds[1], lower + span);
+            planned.add(LoanAccrualCheckpoint.builder()
+                    .id(runDate + ":" + partition)
+                    .runDate(runDate)
+                    .partitionNo(partition)
+                    .lowerLoanId(lower)
+                    .upperLoanId(upper)
+                    .lastLoanId(lower)
+                    .updatedAt(Instant.now())
+                    .build());
+            lower = upper;
+        }
+        return planned;
+    }
+
+    private long processPartition(LoanAccrualCheckpoint checkpoint) {
+        long updated = 0;
+        while (!checkpoint.isCompleted()) {
+            Integer chunkUpdates = transactionTemplate.execute(status -> processChunk(checkpoint));
+            updated += chunkUpdates == null ? 0 : chunkUpdates;
+        }
+        logger.debug("Accrual partition {} finished with {} updates", checkpoint.getId(), updated);
+        return updated;
+    }
+
+    private int processChunk(LoanAccrualCheckpoint checkpoint) {
+        List<Loan> loans = jdbcTemplate.query(SELECT_CHUNK, LOAN_ROW_MAPPER,
+                checkpoint.getLastLoanId(), checkpoint.getUpperLoanId(), chunkSize);
+
+        List<Loan> changed = new ArrayList<>();
+        List<Loan> previous = new ArrayList<>();
+        for (Loan loan : loans) {
+            Loan next = accrue(loan, checkpoint.getRunDate(), defaultAfterDays);
+            if (next != null) {
+                changed.add(next);
+                previous.add(loan);
+            }
+        }
+
+        int written = write(changed, previous);
+        if (written > 0) {
+            loanEventProducer.sendLoanStatusUpdatedMessages(changed, previous);
+        }
+
+        if (loans.size() < chunkSize) {
+            checkpoint.setLastLoanId(checkpoint.getUpperLoanId());
+            checkpoint.setCompleted(true);
+        } else {
+            checkpoint.setLastLoanId(loans.get(loans.size() - 1).getId());
+        }
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+        return written;
+    }
+
+    /**
+     * Apply the batched update. A row whose version moved since it was read (a concurrent repayment
+     * or status change) is skipped and picked up again on the next run.
+     * Skipped loans are removed from both lists so only written loans get events.
+     * @return The number of loans written.
+     */
+    private int write(List<Loan> changed, List<Loan> previous) {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(changed.size());
+        List<Long> ids = new ArrayList<>(changed.size());
+        for (int i = 0; i < changed.size(); i++) {
+            Loan loan = changed.get(i);
+            args.add(new Object[]{loan.getRemainingBalance(), loan.getLoanStatus().getCode(),
+                    Date.valueOf(loan.getLastAccrualDate()), loan.getId(), previous.get(i).getVersion()});
+            ids.add(loan.getId());
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_LOAN, args);
+        // MySQL reports SUCCESS_NO_INFO per row when rewriteBatchedStatements is on, so the rows are
+        // read back to tell which updates matched. Rows this transaction updated stay locked until it
+        // commits, so what is read back is what the batch wrote.
+        Map<Long, Loan> stored = Arrays.stream(counts).anyMatch(count -> count == Statement.SUCCESS_NO_INFO)
+                ? readBack(ids) : Map.of();
+        for (int i = counts.length - 1; i >= 0; i--) {
+            boolean written = counts[i] == Statement.SUCCESS_NO_INFO
+                    ? isWritten(changed.get(i), previous.get(i), stored.get(changed.get(i).getId()))
+                    : counts[i] > 0;
+            if (!written) {
+                changed.remove(i);
+                previous.remove(i);
+            }
+        }
+        return changed.size();
+    }
+
+    private Map<Long, Loan> readBack(List<Long> ids) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Long, Loan> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT id, remaining_balance, loan_status, last_accrual_date, version FROM loans "
+                + "WHERE id IN (" + placeholders + ")", rs -> {
+            Date lastAccrualDate = rs.getDate("last_accrual_date");
+            stored.put(rs.getLong("id"), Loan.builder()
+                    .remainingBalance(rs.getBigDecimal("remaining_balance"))
+                    .loanStatus(LoanStatus.fromDatabase(rs.getString("loan_status")))
+                    .lastAccrualDate(lastAccrualDate == null ? null : lastAccrualDate.toLocalDate())
+                    .version(rs.getLong("version"))
+                    .build());
+        }, ids.toArray());
+        return stored;
+    }
+
+    /**
+     * @return Whether the stored row is exactly what this job's update would have produced from the
+     * version it read. A concurrent writer bumps the version too, but never writes the accrual date.
+     */
+    static boolean isWritten(Loan intended, Loan read, Loan stored) {
+        return stored != null
+                && read.getVersion() != null
+                && stored.getVersion() == read.getVersion() + 1
+                && stored.getRemainingBalance().compareTo(intended.getRemainingBalance()) == 0
+                && stored.getLoanStatus() == intended.getLoanStatus()
+                && Objects.equals(stored.getLastAccrualDate(), intended.getLastAccrualDate());
+    }
+
+    /**
+     * Work out the state of a loan on a business date.
+     * @param loan The loan as currently stored.
+     * @param runDate The business date.
+     * @param defaultAfterDays Days past the end date after which the loan is considered defaulted.
+     * @return The updated loan, or null when nothing changes.
+     */
+    static Loan accrue(Loan loan, LocalDate runDate, int defaultAfterDays) {
+        LocalDate endDate = loan.getEndDate();
+        BigDecimal balance = loan.getRemainingBalance();
+        if (endDate == null || balance == null || balance.signum() <= 0 || !runDate.isAfter(endDate)) {
+            return null;
+        }
+
+        LocalDate accruedTo = loan.getLastAccrualDate() == null || loan.getLastAccrualDate().isBefore(endDate)
+                ? endDate : loan.getLastAccrualDate();
+        long days = ChronoUnit.DAYS.between(accruedTo, runDate);
+        BigDecimal interest = days <= 0 || loan.getInterestRate() == null ? BigDecimal.ZERO
+                : balance.multiply(loan.getInterestRate())
+                        .multiply(BigDecimal.valueOf(days))
+                        .divide(PERCENT.multiply(DAYS_PER_YEAR), 2, RoundingMode.HALF_UP);
+        LoanStatus status = ChronoUnit.DAYS.between(endDate, runDate) > defaultAfterDays
+                ? LoanStatus.DEFAULTED : LoanStatus.OVERDUE;
+
+        if (interest.signum() == 0 && status == loan.getLoanStatus()) {
+            return null;
+        }
+        return loan.toBuilder()
+                .remainingBalance(balance.add(interest))
+                .loanStatus(status)
+                .lastAccrualDate(days > 0 ? runDate : loan.getLastAccrualDate())
+                .version(loan.getVersion() == null ? null : loan.getVersion() + 1)
+                .build();
+    }
+
+    private static final RowMapper<Loan> LOAN_ROW_MAPPER = (rs, rowNum) -> {
+        Date startDate = rs.getDate("start_date");
+        Date endDate = rs.getDate("end_date");
+        Date lastAccrualDate = rs.getDate("last_accrual_date");
+        String loanType = rs.getString("loan_type");
+        String method = rs.getString("amortization_method");
+        return Loan.builder()
+                .id(rs.getLong("id"))
+                .userId(rs.getLong("user_id"))
+                .loanAmount(rs.getBigDecimal("amount"))
+                .loanNumber(rs.getString("loan_number"))
+                .loanType(loanType == null ? null : LoanType.valueOf(loanType))
+                .interestRate(rs.getBigDecimal("interest_rate"))
+                .amortizationMethod(method == null ? null : AmortizationMethod.valueOf(method))
+                .tenureMonths(rs.getInt("tenure_months"))
+                .startDate(startDate == null ? null : startDate.toLocalDate())
+                .endDate(endDate == null ? null : endDate.toLocalDate())
+                .remainingBalance(rs.getBigDecimal("remaining_balance"))
+                .loanStatus(LoanStatus.fromDatabase(rs.getString("loan_status")))
+                .lastAccrualDate(lastAccrualDate == null ? null : lastAccrualDate.toLocalDate())
+                .version(rs.getLong("version"))
+                .build();
+    };
+}
@@ -1,68 +1,180 @@
 package com.bank.app.loans_service.service.Impl;
 
 import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanOutboxEvent;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.event.LoanDeltaNotification;
+import com.bank.app.loans_service.repo.LoanOutboxRepository;
 import com.bank.core.entity.LoanNotification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records loan events in the outbox table. Events are written in the caller's transaction
+ * and published to Kafka by {@link LoanOutboxRelay} once that transaction commits. Each event
+ * is also published in-process as a {@link LoanChangedEvent}, after a flush so the copy of the
+ * loan it carries holds the version the write committed with.
+ */
 @Service
+@Transactional(propagation = Propagation.MANDATORY)
 public class LoanEventProducer {
 
-    private static final String TOPIC = "loan-service-topic";
+    static final String LOAN_PATCHED = "loan_details_patched";  // Payload is a LoanDeltaNotification
     private static final Logger logger = LoggerFactory.getLogger(LoanEventProducer.class);
 
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private LoanOutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * Sends a message indicating that a loan has been issued.
      * @param loan The loan that was issued.
      */
     public void sendLoanIssuedMessage(Loan loan) {
-        logger.info("Sending loan issued message for loanId: {}", loan.getId());
-        LoanNotification loanNotification = new LoanNotification();
-        BeanUtils.copyProperties(loan, loanNotification);
-        kafkaTemplate.send(TOPIC, "loan_issued", loanNotification);
-        logger.info("Loan issued message sent for loanId: {}", loan.getId());
+        logger.info("Queueing loan issued message for loanId: {}", loan.getId());
+        enqueue(loan, null, "loan_issued");
     }
 
     /**
      * Sends a message indicating that a loan status has been updated.
      * @param loan The loan with updated status.
+     * @param previous A copy of the loan before the change.
      */
-    public void sendLoanStatusUpdatedMessage(Loan loan) {
-        logger.info("Sending loan status updated message for loanId: {}", loan.getId());
-        LoanNotification loanNotification = new LoanNotification();
-        BeanUtils.copyProperties(loan, loanNotification);
-        kafkaTemplate.send(TOPIC, "loan_status_updated", loanNotification);
-        logger.info("Loan status updated message sent for loanId: {}", loan.getId());
+    public void sendLoanStatusUpdatedMessage(Loan loan, Loan previous) {
+        logger.info("Queueing loan status updated message for loanId: {}", loan.getId());
+        enqueue(loan, previous, "loan_status_updated");
     }
 
     /**
      * Sends a message indicating that a loan has been repaid.
      * @param loan The loan that was repaid.
+     * @param previous A copy of the loan before the change.
      */
-    public void sendLoanRepaidMessage(Loan loan) {
-        logger.info("Sending loan repaid message for loanId: {}", loan.getId());
-        LoanNotification loanNotification = new LoanNotification();
-        BeanUtils.copyProperties(loan, loanNotification);
-        kafkaTemplate.send(TOPIC, "loan_repaid", loanNotification);
-        logger.info("Loan repaid message sent for loanId: {}", loan.getId());
+    public void sendLoanRepaidMessage(Loan loan, Loan previous) {
+        logger.info("Queueing loan repaid message for loanId: {}", loan.getId());
+        enqueue(loan, previous, "loan_repaid");
     }
 
     /**
      * Sends a message indicating that a loan has been updated.
      * @param loan The loan that was updated.
+     * @param previous A copy of the loan before the change.
+     */
+    public void sendLoanUpdatedMessage(Loan loan, Loan previous) {
+        logger.info("Queueing loan updated message for loanId: {}", loan.getId());
+        enqueue(loan, previous, "loan_details_updated");
+    }
+
+    /**
+     * Sends a message carrying only the columns a patch changed.
+     * @param loan The loan after the patch.
+     * @param previous A copy of the loan before the patch. Columns that no read model uses may hold the patched value.
+     * @param delta The changed columns.
      */
-    public void sendLoanUpdatedMessage(Loan loan) {
-        logger.info("Sending loan updated message for loanId: {}", loan.getId());
+    public void sendLoanPatchedMessage(Loan loan, Loan previous, LoanDeltaNotification delta) {
+        logger.info("Queueing loan patched message for loanId: {}", loan.getId());
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + LOAN_PATCHED + " event for loanId: " + loan.getId(), e);
+        }
+        outboxRepository.save(LoanOutboxEvent.builder()
+                .loanId(loan.getId())
+                .eventType(LOAN_PATCHED)
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build());
+        outboxRepository.flush();
+        applicationEventPublisher.publishEvent(new LoanChangedEvent(LOAN_PATCHED, loan, previous));
+    }
+
+    /**
+     * Sends loan issued messages for a batch of loans with a single batched outbox insert.
+     * @param loans The loans that were issued.
+     */
+    public void sendLoanIssuedMessages(List<Loan> loans) {
+        logger.info("Queueing {} loan issued messages", loans.size());
+        List<LoanOutboxEvent> events = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            events.add(toOutboxEvent(loan, "loan_issued"));
+        }
+        outboxRepository.saveAll(events);
+        outboxRepository.flush();
+        for (Loan loan : loans) {
+            applicationEventPublisher.publishEvent(new LoanChangedEvent("loan_issued", loan, null));
+        }
+    }
+
+    /**
+     * Sends loan status updated messages for a batch of loans with a single batched outbox insert.
+     * @param loans The loans with updated status.
+     * @param previous Copies of the same loans before the change, in the same order.
+     */
+    public void sendLoanStatusUpdatedMessages(List<Loan> loans, List<Loan> previous) {
+        logger.info("Queueing {} loan status updated messages", loans.size());
+        List<LoanOutboxEvent> events = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            events.add(toOutboxEvent(loan, "loan_status_updated"));
+        }
+        outboxRepository.saveAll(events);
+        outboxRepository.flush();
+        for (int i = 0; i < loans.size(); i++) {
+            applicationEventPublisher.publishEvent(new LoanChangedEvent("loan_status_updated", loans.get(i), previous.get(i)));
+        }
+    }
+
+    private void enqueue(Loan loan, Loan previous, String eventType) {
+        outboxRepository.save(toOutboxEvent(loan, eventType));
+        // The version is only bumped when the update is flushed
+        outboxRepository.flush();
+        applicationEventPublisher.publishEvent(new LoanChangedEvent(eventType, loan, previous));
+    }
+
+    /**
+     * Copy a loan into the notification published to Kafka. The status keeps its full name on the
+     * wire; only the column holds the one-letter code.
+     * @param loan The loan.
+     * @return The notification.
+     */
+    public static LoanNotification toNotification(Loan loan) {
         LoanNotification loanNotification = new LoanNotification();
+        // copyProperties skips loanStatus because the types differ
         BeanUtils.copyProperties(loan, loanNotification);
-        kafkaTemplate.send(TOPIC, "loan_details_updated", loanNotification);
-        logger.info("Loan updated message sent for loanId: {}", loan.getId());
+        loanNotification.setLoanStatus(loan.getLoanStatus() == null ? null : loan.getLoanStatus().name());
+        return loanNotification;
+    }
+
+    private LoanOutboxEvent toOutboxEvent(Loan loan, String eventType) {
+        LoanNotification loanNotification = toNotification(loan);
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(loanNotification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event for loanId: " + loan.getId(), e);
+        }
+        return LoanOutboxEvent.builder()
+                .loanId(loan.getId())
+                .eventType(eventType)
+                .payload(payload)
+                .createdAt(Instant.now())
+                .build();
     }
-}
\ No newline at end of file
+}
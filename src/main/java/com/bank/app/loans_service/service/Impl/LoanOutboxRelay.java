@@ -0,0 +1,334 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.LoanOutboxEvent;
+import com.bank.app.loans_service.event.LoanDeltaNotification;
+import com.bank.app.loans_service.repo.LoanOutboxRepository;
+import com.bank.core.entity.LoanNotification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the loan outbox to Kafka in batches. Sends inside a batch are pipelined and bounded
+ * by {@code loan.outbox.relay.max-in-flight}; an event is removed from the outbox only once
+ * the broker has acknowledged it, so delivery is at-least-once.
+ * <p>
+ * The outbox is also the buffer for broker outages. When the broker cannot be reached or does not
+ * acknowledge in time, the relay stops the batch and leaves the outbox alone for a backoff that
+ * doubles from {@code loan.outbox.relay.initial-backoff-ms} up to {@code loan.outbox.relay.max-backoff-ms}.
+ * It then sends only the oldest event, and once the broker answers it drains the backlog in order at
+ * full batch size. No outbox rows stay locked while the broker is unreachable.
+ * <p>
+ * A batch is claimed in a short transaction that locks the oldest unclaimed rows, skipping rows other
+ * relays are claiming, and marks them claimed for {@code loan.outbox.relay.claim-ttl-ms}. The locks
+ * are released before anything is sent, so no outbox row stays locked while waiting for the broker.
+ * Unacknowledged events are released after the batch; the claim of a relay that dies runs out and
+ * other relays take its events over.
+ * <p>
+ * Each loan's events reach the topic in outbox order, which is id order: ids are assigned as rows are
+ * inserted, so they follow the order of a loan's writes whichever instance made them. Within a batch
+ * a loan's next event is only sent once the previous one is acknowledged, and none of its later
+ * events are sent after one fails. A loan is also left alone while an earlier event of it is
+ * outside the batch, held by another relay or committed after the claim.
+ */
+@Component
+public class LoanOutboxRelay {
+
+    private static final String TOPIC = "loan-service-topic";
+    static final String EVENT_TYPE_HEADER = "eventType";
+    private static final Logger logger = LoggerFactory.getLogger(LoanOutboxRelay.class);
+
+    private final LoanOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final long ackTimeoutMs;
+    private final long claimTtlMs;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final Timer ackTimer;
+
+    private volatile long pendingEvents;
+    private volatile Instant oldestPendingAt;
+    private volatile long backoffMs;  // 0 while the broker acknowledges sends
+    private volatile long retryAt;
+
+    @Autowired
+    public LoanOutboxRelay(LoanOutboxRepository outboxRepository,
+                           KafkaTemplate<String, Object> kafkaTemplate,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${loan.outbox.relay.batch-size:500}") int batchSize,
+                           @Value("${loan.outbox.relay.max-in-flight:100}") int maxInFlight,
+                           @Value("${loan.outbox.relay.ack-timeout-ms:30000}") long ackTimeoutMs,
+                           @Value("${loan.outbox.relay.claim-ttl-ms:120000}") long claimTtlMs,
+                           @Value("${loan.outbox.relay.initial-backoff-ms:500}") long initialBackoffMs,
+                           @Value("${loan.outbox.relay.max-backoff-ms:30000}") long maxBackoffMs) {
+        if (claimTtlMs <= ackTimeoutMs) {
+            throw new IllegalArgumentException("loan.outbox.relay.claim-ttl-ms must be longer than loan.outbox.relay.ack-timeout-ms");
+        }
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.claimTtlMs = claimTtlMs;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        this.publishedCounter = Counter.builder("loan.outbox.published")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("loan.outbox.failed")
+                .description("Outbox events whose send failed and will be retried")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("loan.outbox.relay.batch")
+                .description("Time to claim, send and acknowledge one outbox batch")
+                .register(meterRegistry);
+        this.ackTimer = Timer.builder("loan.kafka.send.ack")
+                .description("Time from handing a record to the producer until the broker acknowledges it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("loan.outbox.pending", this, relay -> relay.pendingEvents)
+                .description("Outbox events waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("loan.outbox.lag.seconds", this, LoanOutboxRelay::lagSeconds)
+                .description("Age of the oldest event waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("loan.outbox.relay.backoff.seconds", this, relay -> relay.backoffMs / 1000.0)
+                .description("Current pause between attempts while Kafka is unreachable, 0 when it is reachable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes pending outbox events until the outbox is drained or a batch is not fully acknowledged.
+     */
+    @Scheduled(fixedDelayString = "${loan.outbox.relay.interval-ms:200}")
+    public void relay() {
+        try {
+            if (backoffMs > 0 && System.currentTimeMillis() < retryAt) {
+                return;
+            }
+            boolean drained;
+            do {
+                drained = Boolean.TRUE.equals(batchTimer.record(this::relayBatch));
+            } while (!drained);
+        } catch (Exception e) {
+            logger.error("Error relaying loan outbox events", e);
+        } finally {
+            pendingEvents = outboxRepository.count();
+            oldestPendingAt = outboxRepository.findOldestCreatedAt();
+        }
+    }
+
+    /**
+     * @return Whether the relay should stop for now: the outbox is drained or a send failed.
+     */
+    private boolean relayBatch() {
+        // After a failure only the oldest event is sent, to probe the broker without piling up failed sends
+        int limit = backoffMs > 0 ? 1 : batchSize;
+        Instant now = Instant.now();
+        Instant claimedUntil = now.plusMillis(claimTtlMs);
+        List<LoanOutboxEvent> events = transactionTemplate.execute(status -> claim(now, claimedUntil, limit));
+        if (events == null || events.isEmpty()) {
+            return true;
+        }
+
+        List<Long> published = new ArrayList<>(events.size());
+        boolean unavailable = false;
+        try {
+            // The first event of each loan outside the batch; the loan's events from there on are left alone
+            Map<Long, Long> firstElsewhere = new HashMap<>();
+            for (Object[] row : outboxRepository.findFirstEventsElsewhere(
+                    events.stream().map(LoanOutboxEvent::getLoanId).collect(Collectors.toSet()),
+                    events.stream().map(LoanOutboxEvent::getId).toList())) {
+                firstElsewhere.put((Long) row[0], (Long) row[1]);
+            }
+            Set<Long> halted = new HashSet<>();
+            List<LoanOutboxEvent> pending = events;
+            while (!pending.isEmpty() && !unavailable) {
+                if (System.currentTimeMillis() + ackTimeoutMs > claimedUntil.toEpochMilli()) {
+                    // Another relay may take the events over once the claim runs out
+                    logger.warn("Outbox claim runs out, leaving {} events to the next batch", pending.size());
+                    break;
+                }
+                // A round holds at most one event per loan, so a loan's next event is only sent once the
+                // previous one is acknowledged, and not at all once one of its events failed
+                List<LoanOutboxEvent> round = new ArrayList<>();
+                List<LoanOutboxEvent> later = new ArrayList<>();
+                Set<Long> loansInRound = new HashSet<>();
+                for (LoanOutboxEvent event : pending) {
+                    Long loanId = event.getLoanId();
+                    if (halted.contains(loanId) || event.getId() > firstElsewhere.getOrDefault(loanId, Long.MAX_VALUE)) {
+                        halted.add(loanId);
+                    } else {
+                        (loansInRound.add(loanId) ? round : later).add(event);
+                    }
+                }
+                unavailable = sendRound(round, published, halted);
+                pending = later;
+            }
+        } finally {
+            outboxRepository.deleteAllByIdInBatch(published);
+            Set<Long> acknowledged = new HashSet<>(published);
+            List<Long> unpublished = events.stream().map(LoanOutboxEvent::getId)
+                    .filter(id -> !acknowledged.contains(id)).toList();
+            if (!unpublished.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.updateClaimedUntil(unpublished, null));
+            }
+        }
+        publishedCounter.increment(published.size());
+        logger.debug("Relayed {} of {} outbox events", published.size(), events.size());
+        if (unavailable) {
+            backOff();
+            return true;
+        }
+        if (backoffMs > 0) {
+            logger.info("Kafka is reachable again, draining {} pending outbox events", pendingEvents);
+            backoffMs = 0;
+        }
+        // A rejected record is retried on the next run, as before
+        return published.size() < events.size() || events.size() < limit;
+    }
+
+    private List<LoanOutboxEvent> claim(Instant now, Instant claimedUntil, int limit) {
+        List<LoanOutboxEvent> events = outboxRepository.findClaimable(now, PageRequest.of(0, limit));
+        if (!events.isEmpty()) {
+            outboxRepository.updateClaimedUntil(events.stream().map(LoanOutboxEvent::getId).toList(), claimedUntil);
+        }
+        return events;
+    }
+
+    /**
+     * Send events of distinct loans, pipelined, and wait for their acknowledgements.
+     * @param round The events to send.
+     * @param published Receives the ids of the acknowledged events.
+     * @param halted Receives the loans whose event was not acknowledged.
+     * @return Whether the broker could not be reached.
+     */
+    private boolean sendRound(List<LoanOutboxEvent> round, List<Long> published, Set<Long> halted) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<CompletableFuture<Long>> acks = new ArrayList<>(round.size());
+        for (LoanOutboxEvent event : round) {
+            CompletableFuture<Long> ack = send(event, inFlight);
+            acks.add(ack);
+            if (ack.isCompletedExceptionally() && brokerUnavailable(ack.handle((id, e) -> e).join())) {
+                // The producer could not reach the broker within max.block.ms, so the rest would block too
+                break;
+            }
+        }
+
+        boolean unavailable = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        for (int i = 0; i < round.size(); i++) {
+            Long loanId = round.get(i).getLoanId();
+            if (i >= acks.size() || Thread.currentThread().isInterrupted()) {
+                halted.add(loanId);
+                continue;
+            }
+            try {
+                published.add(acks.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                halted.add(loanId);
+            } catch (Exception e) {
+                halted.add(loanId);
+                failedCounter.increment();
+                unavailable |= brokerUnavailable(e);
+                logger.warn("Outbox event not acknowledged, it and later events of loan {} will be retried", loanId, e);
+            }
+        }
+        return unavailable;
+    }
+
+    /**
+     * @param e A send failure.
+     * @return Whether it means the broker could not be reached, rather than that this record was rejected.
+     */
+    private static boolean brokerUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backOff() {
+        backoffMs = backoffMs == 0 ? initialBackoffMs : Math.min(backoffMs * 2, maxBackoffMs);
+        retryAt = System.currentTimeMillis() + backoffMs;
+        logger.warn("Kafka send failed, keeping events in the outbox and retrying in {} ms", backoffMs);
+    }
+
+    private CompletableFuture<Long> send(LoanOutboxEvent event, Semaphore inFlight) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            Class<?> payloadType = LoanEventProducer.LOAN_PATCHED.equals(event.getEventType())
+                    ? LoanDeltaNotification.class : LoanNotification.class;
+            Object notification = objectMapper.readValue(event.getPayload(), payloadType);
+            // Keyed by loan id: events spread over all partitions while each loan's events stay in order
+            ProducerRecord<String, Object> record = new ProducerRecord<>(TOPIC, String.valueOf(event.getLoanId()), notification);
+            record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+            long sentAt = System.nanoTime();
+            return kafkaTemplate.send(record)
+                    .whenComplete((result, ex) -> {
+                        inFlight.release();
+                        if (ex == null) {
+                            ackTimer.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .thenApply(result -> event.getId());
+        } catch (Exception e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private double lagSeconds() {
+        Instant oldest = oldestPendingAt;
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+}
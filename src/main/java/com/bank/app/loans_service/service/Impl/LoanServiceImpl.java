@@ -1,19 +1,45 @@
 package com.bank.app.loans_service.service.Impl;
 
+import com.bank.app.loans_service.cache.LoansByUserCache;
+import com.bank.app.loans_service.datasource.ReadYourWritesTracker;
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.LoanBatchItemResult;
+import com.bank.app.loans_service.dto.LoanPage;
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
+import com.bank.app.loans_service.entity.AmortizationMethod;
 import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.event.LoanDeltaNotification;
+import com.bank.app.loans_service.exception.IllegalStatusTransitionException;
 import com.bank.app.loans_service.exception.ResourceNotFoundException;
+import com.bank.app.loans_service.metrics.LoanMetrics;
 import com.bank.app.loans_service.repo.LoansRepository;
+import com.bank.app.loans_service.service.LoanNumberGenerator;
 import com.bank.app.loans_service.service.LoanService;
+import com.bank.app.loans_service.service.RepaymentMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class LoanServiceImpl implements LoanService {
@@ -22,11 +48,38 @@ public class LoanServiceImpl implements LoanService {
 
     private final LoansRepository loanRepository;
     private final LoanEventProducer loanEventProducer;
+    private final LoansByUserCache loansByUserCache;
+    private final LoanNumberGenerator loanNumberGenerator;
+    private final AmortizationEngine amortizationEngine;
+    private final LoanMetrics loanMetrics;
+    private final ReadYourWritesTracker readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final int issueBatchSize;
+    private final RepaymentMode repaymentMode;
+    private final int repayMaxAttempts;
+    private final long repayRetryBackoffMs;
 
     @Autowired
-    public LoanServiceImpl(LoansRepository loanRepository, LoanEventProducer loanEventProducer) {
+    public LoanServiceImpl(LoansRepository loanRepository, LoanEventProducer loanEventProducer,
+                           LoansByUserCache loansByUserCache, LoanNumberGenerator loanNumberGenerator,
+                           AmortizationEngine amortizationEngine, LoanMetrics loanMetrics,
+                           ReadYourWritesTracker readYourWrites, PlatformTransactionManager transactionManager,
+                           @Value("${loan.issue.batch-size:500}") int issueBatchSize,
+                           @Value("${loan.repay.mode:OPTIMISTIC}") RepaymentMode repaymentMode,
+                           @Value("${loan.repay.max-attempts:5}") int repayMaxAttempts,
+                           @Value("${loan.repay.retry-backoff-ms:5}") long repayRetryBackoffMs) {
         this.loanRepository = loanRepository;
         this.loanEventProducer = loanEventProducer;
+        this.loansByUserCache = loansByUserCache;
+        this.loanNumberGenerator = loanNumberGenerator;
+        this.amortizationEngine = amortizationEngine;
+        this.loanMetrics = loanMetrics;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.issueBatchSize = issueBatchSize;
+        this.repaymentMode = repaymentMode;
+        this.repayMaxAttempts = repayMaxAttempts;
+        this.repayRetryBackoffMs = repayRetryBackoffMs;
     }
 
     /**
@@ -35,51 +88,157 @@ public class LoanServiceImpl implements LoanService {
      * @return The newly created loan.
      */
     @Override
+    @Transactional
     public Loan issueLoan(Loan loan) {
-        logger.info("Issuing loan for userId: {}", loan.getUserId());
-        loan.setLoanNumber(generateLoanNumber());
-        loan.setStartDate(LocalDate.now());
-        loan.setEndDate(LocalDate.now().plusMonths(loan.getTenureMonths()));
-        loan.setLoanStatus("ACTIVE");
+        return loanMetrics.total("issueLoan", () -> {
+            logger.info("Issuing loan for userId: {}", loan.getUserId());
+            prepareNewLoan(loan);
 
-        // Set interest rate based on loan type if interest rate is null
-        if (loan.getInterestRate() == null) {
-            switch (loan.getLoanType()) {
-                case HOME:
-                    loan.setInterestRate(BigDecimal.valueOf(5.5));
-                    break;
-                case AUTO:
-                    loan.setInterestRate(BigDecimal.valueOf(7.0));
-                    break;
-                case PERSONAL:
-                    loan.setInterestRate(BigDecimal.valueOf(10.0));
-                    break;
-                default:
-                    loan.setInterestRate(BigDecimal.valueOf(8.0));
-            }
-        }
+            Loan newLoan = loanMetrics.repository("issueLoan", () -> loanRepository.save(loan));
+            loanMetrics.event("issueLoan", () -> loanEventProducer.sendLoanIssuedMessage(newLoan));
+            loanMetrics.outcome(LoanMetrics.OUTCOME_ISSUED, 1);
+            logger.info("Loan issued successfully with loanId: {}", newLoan.getId());
+            return newLoan;
+        });
+    }
 
-        BigDecimal totalInterest = (loan.getLoanAmount().multiply(loan.getInterestRate()).multiply(BigDecimal.valueOf(loan.getTenureMonths())))
-                .divide(BigDecimal.valueOf(12 * 100), BigDecimal.ROUND_HALF_UP);
-        loan.setRemainingBalance(loan.getLoanAmount().add(totalInterest));
+    /**
+     * Issues a batch of new loans. Valid loans are inserted in chunks of {@code loan.issue.batch-size}
+     * using JDBC batching; a chunk that fails is retried loan by loan so one bad row only fails itself.
+     * @param loans The loan details.
+     * @return One result per submitted loan, in submission order.
+     */
+    @Override
+    public List<LoanBatchItemResult> issueLoans(List<Loan> loans) {
+        return loanMetrics.total("issueLoans", () -> issueLoansChunked(loans));
+    }
 
-        Loan newLoan = loanRepository.save(loan);
-        loanEventProducer.sendLoanIssuedMessage(newLoan);
-        logger.info("Loan issued successfully with loanId: {}", newLoan.getId());
-        return newLoan;
+    private List<LoanBatchItemResult> issueLoansChunked(List<Loan> loans) {
+        logger.info("Issuing batch of {} loans", loans.size());
+        LoanBatchItemResult[] results = new LoanBatchItemResult[loans.size()];
+        List<Integer> chunk = new ArrayList<>(issueBatchSize);
+        for (int i = 0; i < loans.size(); i++) {
+            Loan loan = loans.get(i);
+            String error = validateNewLoan(loan);
+            if (error != null) {
+                results[i] = LoanBatchItemResult.builder().index(i).success(false).error(error).build();
+                continue;
+            }
+            prepareNewLoan(loan);
+            chunk.add(i);
+            if (chunk.size() == issueBatchSize) {
+                saveChunk(loans, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(loans, chunk, results);
+        }
+        long failed = Arrays.stream(results).filter(result -> !result.isSuccess()).count();
+        loanMetrics.outcome(LoanMetrics.OUTCOME_ISSUED, loans.size() - failed);
+        logger.info("Loan batch issued with {} successes and {} failures", loans.size() - failed, failed);
+        return Arrays.asList(results);
     }
 
     /**
-     * Retrieves loans by user ID.
+     * Retrieves loans by user ID, serving repeated lookups from {@link LoansByUserCache}. Read-only,
+     * so a cache miss is served by a replica unless the user wrote recently.
      * @param userId The ID of the user.
      * @return A list of loans belonging to the user.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getLoansByUserId(Long userId) {
-        logger.info("Retrieving loans for userId: {}", userId);
-        List<Loan> loans = loanRepository.findByUserId(userId);
-        logger.info("Loans retrieved successfully for userId: {}", userId);
-        return loans;
+        return loanMetrics.total("getLoansByUserId", () -> {
+            logger.info("Retrieving loans for userId: {}", userId);
+            List<Loan> loans = loansByUserCache.get(userId,
+                    id -> loanMetrics.repository("getLoansByUserId", () -> readYourWrites.read(id, () -> loanRepository.findByUserId(id))));
+            logger.info("Loans retrieved successfully for userId: {}", userId);
+            return loans;
+        });
+    }
+
+    /**
+     * Retrieves one keyset page of a user's loans as projections. One extra row is fetched to
+     * tell whether another page follows.
+     * @param userId The ID of the user.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return The page and the cursor of the next one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public LoanPage getLoanPageByUserId(Long userId, Long after, int limit) {
+        logger.info("Retrieving loan page for userId: {} after loanId: {}", userId, after);
+        List<LoanSummary> loans = loanMetrics.total("getLoanPageByUserId", () -> readYourWrites.read(userId,
+                () -> loanRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, after == null ? 0L : after, PageRequest.of(0, limit + 1))));
+        return toPage(loans, limit);
+    }
+
+    /**
+     * Retrieves one keyset page of the loans matching the criteria as projections. One extra row
+     * is fetched to tell whether another page follows.
+     * @param criteria The filters; unset fields do not filter.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return The page and the cursor of the next one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public LoanPage searchLoans(LoanSearchCriteria criteria, Long after, int limit) {
+        logger.info("Searching loans after loanId: {}", after);
+        List<LoanSummary> loans = loanMetrics.total("searchLoans", () -> readYourWrites.read(criteria.getUserId(),
+                () -> loanRepository.search(criteria, after, limit + 1)));
+        return toPage(loans, limit);
+    }
+
+    /**
+     * Counts the loans in a status that end within a date range from the (loan_status, end_date) index.
+     * @param status The status.
+     * @param from The first end date, inclusive.
+     * @param to The last end date, inclusive.
+     * @return The number of loans.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long countLoansDue(LoanStatus status, LocalDate from, LocalDate to) {
+        return loanMetrics.total("countLoansDue",
+                () -> loanRepository.countByStatusAndEndDateBetween(status, from, to));
+    }
+
+    /**
+     * Streams every loan of a user through the sink inside a read-only transaction.
+     * @param userId The ID of the user.
+     * @param sink Receives each loan in turn.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamLoansByUserId(Long userId, Consumer<LoanSummary> sink) {
+        logger.info("Streaming loans for userId: {}", userId);
+        readYourWrites.read(userId, () -> {
+            try (Stream<LoanSummary> loans = loanRepository.streamByUserIdOrderByIdAsc(userId)) {
+                loans.forEach(sink);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves the repayment schedule of a loan from the shared schedule cache.
+     * @param loanId The ID of the loan.
+     * @return The schedule for the loan's terms.
+     * @throws ResourceNotFoundException if the loan is not found.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public AmortizationSchedule getLoanSchedule(Long loanId) throws ResourceNotFoundException {
+        return loanMetrics.total("getLoanSchedule", () -> {
+            logger.info("Retrieving schedule for loanId: {}", loanId);
+            Loan loan = loanMetrics.repository("getLoanSchedule", () -> loanRepository.findById(loanId))
+                    .orElseThrow(() -> loanNotFound(loanId));
+            AmortizationMethod method = loan.getAmortizationMethod() == null ? AmortizationMethod.FLAT : loan.getAmortizationMethod();
+            return amortizationEngine.schedule(loan.getLoanAmount(), loan.getInterestRate(), loan.getTenureMonths(), method);
+        });
     }
 
     /**
@@ -87,34 +246,104 @@ public class LoanServiceImpl implements LoanService {
      * @param loanId The ID of the loan.
      * @param newStatus The new status of the loan.
      * @return The updated loan.
+     * @throws IllegalStatusTransitionException if the loan cannot move from its status to the new one.
      */
     @Override
-    public Loan updateLoanStatus(Long loanId, String newStatus) {
-        logger.info("Updating loan status for loanId: {} to status: {}", loanId, newStatus);
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + loanId));
-        loan.setLoanStatus(newStatus);
-        Loan updatedLoan = loanRepository.save(loan);
-        loanEventProducer.sendLoanStatusUpdatedMessage(updatedLoan);
-        logger.info("Loan status updated successfully for loanId: {}", loanId);
-        return updatedLoan;
+    @Transactional
+    public Loan updateLoanStatus(Long loanId, LoanStatus newStatus) {
+        return loanMetrics.total("updateLoanStatus", () -> {
+            logger.info("Updating loan status for loanId: {} to status: {}", loanId, newStatus);
+            Loan loan = loanMetrics.repository("updateLoanStatus", () -> loanRepository.findById(loanId))
+                    .orElseThrow(() -> loanNotFound(loanId));
+            checkTransition(loanId, loan.getLoanStatus(), newStatus);
+            Loan previous = loan.toBuilder().build();
+            loan.setLoanStatus(newStatus);
+            Loan updatedLoan = loanMetrics.repository("updateLoanStatus", () -> loanRepository.save(loan));
+            loanMetrics.event("updateLoanStatus", () -> loanEventProducer.sendLoanStatusUpdatedMessage(updatedLoan, previous));
+            logger.info("Loan status updated successfully for loanId: {}", loanId);
+            return updatedLoan;
+        });
     }
 
     /**
-     * Repays a loan.
+     * Repays a loan. Depending on {@code loan.repay.mode} the balance is either updated with a
+     * version-checked read-modify-write that is retried on conflict, or decremented by a single
+     * atomic UPDATE for loans that see heavy concurrent repayment.
      * @param loanId The ID of the loan.
      * @param paymentAmount The amount to be paid.
      * @return The updated loan.
+     * @throws OptimisticLockingFailureException if the loan kept changing for every retry attempt, or
+     * changed once when the call joins a transaction that is already running, which is not retried.
      */
     @Override
-    @Transactional
     public Loan repayLoan(Long loanId, BigDecimal paymentAmount) {
+        return loanMetrics.total("repayLoan", () -> repayWithRetry(loanId, paymentAmount));
+    }
+
+    private Loan repayWithRetry(Long loanId, BigDecimal paymentAmount) {
         logger.info("Repaying loan for loanId: {} with amount: {}", loanId, paymentAmount);
-        Loan loan = loanRepository.findById(loanId).orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + loanId));
+        if (repaymentMode == RepaymentMode.ATOMIC) {
+            return transactionTemplate.execute(status -> repayAtomically(loanId, paymentAmount));
+        }
+        // Joining an outer transaction, such as a write lane batch, a conflict has already marked it
+        // rollback-only, so a retry could not commit; fail at once and leave the retries to the rerun
+        boolean participating = TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> repayOptimistically(loanId, paymentAmount));
+            } catch (OptimisticLockingFailureException e) {
+                if (participating) {
+                    throw e;
+                }
+                if (attempt >= repayMaxAttempts) {
+                    logger.warn("Giving up repaying loanId: {} after {} conflicting attempts", loanId, attempt);
+                    throw e;
+                }
+                logger.debug("Repayment conflict on loanId: {}, retrying (attempt {})", loanId, attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private Loan repayAtomically(Long loanId, BigDecimal paymentAmount) {
+        // Lock the row for the pre-image so it is exactly the state the UPDATE applies to; otherwise
+        // concurrent repayments would report overlapping deltas and the read models would drift
+        Loan previous = loanMetrics.repository("repayLoan", () -> loanRepository.findByIdForUpdate(loanId))
+                .map(loan -> loan.toBuilder().build())
+                .orElseThrow(() -> loanNotFound(loanId));
+        int updated = loanMetrics.repository("repayLoan", () -> loanRepository.decrementRemainingBalance(loanId, paymentAmount));
+        Loan loan = loanMetrics.repository("repayLoan", () -> loanRepository.findById(loanId)).orElseThrow(() -> loanNotFound(loanId));
+        if (updated == 0) {
+            logger.warn("Loan already repaid for loanId: {}", loanId);
+            return loan;
+        }
+        loanMetrics.event("repayLoan", () -> loanEventProducer.sendLoanRepaidMessage(loan, previous));
+        countRepaidToZero(loan);
+        logger.info("Loan repaid successfully for loanId: {}", loanId);
+        return loan;
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(repayRetryBackoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying repayment", e);
+        }
+    }
+
+    private Loan repayOptimistically(Long loanId, BigDecimal paymentAmount) {
+        Loan loan = loanMetrics.repository("repayLoan", () -> loanRepository.findById(loanId)).orElseThrow(() -> loanNotFound(loanId));
         if (loan.getRemainingBalance().compareTo(BigDecimal.ZERO) > 0) {
+            Loan previous = loan.toBuilder().build();
             BigDecimal newBalance = loan.getRemainingBalance().subtract(paymentAmount);
             loan.setRemainingBalance(newBalance.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : newBalance);
-            Loan updatedLoan = loanRepository.save(loan);
-            loanEventProducer.sendLoanRepaidMessage(updatedLoan);
+            if (loan.getRemainingBalance().signum() == 0) {
+                loan.setLoanStatus(LoanStatus.CLOSED);
+            }
+            Loan updatedLoan = loanMetrics.repository("repayLoan", () -> loanRepository.saveAndFlush(loan));
+            loanMetrics.event("repayLoan", () -> loanEventProducer.sendLoanRepaidMessage(updatedLoan, previous));
+            countRepaidToZero(updatedLoan);
             logger.info("Loan repaid successfully for loanId: {}", loanId);
             return updatedLoan;
         } else {
@@ -128,57 +357,272 @@ public class LoanServiceImpl implements LoanService {
      * @param inputLoan The loan details to be updated.
      * @return The updated loan.
      * @throws ResourceNotFoundException if the loan is not found.
+     * @throws IllegalStatusTransitionException if the loan cannot move from its status to the given one.
      */
     @Override
+    @Transactional
     public Loan updateLoan(Loan inputLoan) throws ResourceNotFoundException {
-        logger.info("Updating loan details for loanId: {}", inputLoan.getId());
-        Loan existingLoan = loanRepository.findById(inputLoan.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + inputLoan.getId()));
+        return loanMetrics.total("updateLoan", () -> {
+            logger.info("Updating loan details for loanId: {}", inputLoan.getId());
+            Loan existingLoan = loanMetrics.repository("updateLoan", () -> loanRepository.findById(inputLoan.getId()))
+                    .orElseThrow(() -> loanNotFound(inputLoan.getId()));
+            checkTransition(inputLoan.getId(), existingLoan.getLoanStatus(), inputLoan.getLoanStatus());
+            Loan previous = existingLoan.toBuilder().build();
 
-        if (inputLoan.getUserId() != null) {
-            existingLoan.setUserId(inputLoan.getUserId());
+            mergeNonNull(inputLoan, existingLoan);
+
+            Loan updatedLoan = loanMetrics.repository("updateLoan", () -> loanRepository.save(existingLoan));
+            loanMetrics.event("updateLoan", () -> loanEventProducer.sendLoanUpdatedMessage(updatedLoan, previous));
+            logger.info("Loan details updated successfully for loanId: {}", inputLoan.getId());
+            return updatedLoan;
+        });
+    }
+
+    /**
+     * Applies a merge patch with a single UPDATE of the patched columns. The loan is read first only
+     * when the patch changes a column the read models need the old value of, or the status, whose
+     * transition is checked against the version read. The UPDATE is then guarded by that version, so
+     * a concurrent change fails the patch with a conflict instead of leaving the read models wrong.
+     * @param loanId The ID of the loan.
+     * @param expectedVersion The version the patch was made against, or null to patch any version.
+     * @param patch The columns to change.
+     * @return The patched loan.
+     * @throws ResourceNotFoundException if the loan is not found.
+     * @throws IllegalStatusTransitionException if the loan cannot move from its status to the patched one.
+     */
+    @Override
+    @Transactional
+    public Loan patchLoan(Long loanId, Long expectedVersion, LoanPatch patch) throws ResourceNotFoundException {
+        return loanMetrics.total("patchLoan", () -> {
+            logger.info("Patching {} for loanId: {}", patch.getValues().keySet(), loanId);
+            Loan previous = null;
+            if (patch.touchesReadModels()) {
+                previous = loanMetrics.repository("patchLoan", () -> loanRepository.findById(loanId))
+                        .map(loan -> loan.toBuilder().build())
+                        .orElseThrow(() -> loanNotFound(loanId));
+            }
+            Long guardVersion = expectedVersion;
+            if (previous != null) {
+                if (expectedVersion != null && !expectedVersion.equals(previous.getVersion())) {
+                    throw new ObjectOptimisticLockingFailureException(Loan.class, loanId);
+                }
+                // The event's old values and the status transition come from this version, so only patch that one
+                guardVersion = previous.getVersion();
+            }
+            LoanStatus newStatus = (LoanStatus) patch.getValues().get("loanStatus");
+            if (newStatus != null) {
+                checkTransition(loanId, previous.getLoanStatus(), newStatus);
+            }
+            Long patchVersion = guardVersion;
+            int updated = patch.isEmpty() ? 0 : loanMetrics.repository("patchLoan",
+                    () -> loanRepository.applyPatch(loanId, patchVersion, patch));
+            Loan patchedLoan = loanMetrics.repository("patchLoan", () -> loanRepository.findById(loanId))
+                    .orElseThrow(() -> loanNotFound(loanId));
+            if (patch.isEmpty()) {
+                return patchedLoan;
+            }
+            if (updated == 0) {
+                throw new ObjectOptimisticLockingFailureException(Loan.class, loanId);
+            }
+
+            // Columns the read models use were not patched, so the new state stands in for the old one
+            Loan before = previous != null ? previous : patchedLoan.toBuilder().build();
+            LoanDeltaNotification delta = LoanDeltaNotification.builder()
+                    .loanId(loanId)
+                    .userId(patchedLoan.getUserId())
+                    .version(patchedLoan.getVersion())
+                    .changes(patch.changedValues())
+                    .cleared(patch.clearedFields())
+                    .build();
+            loanMetrics.event("patchLoan", () -> loanEventProducer.sendLoanPatchedMessage(patchedLoan, before, delta));
+            logger.info("Loan patched successfully for loanId: {}", loanId);
+            return patchedLoan;
+        });
+    }
+
+    /**
+     * Copies every field that is set on the source onto the target.
+     * @param source The loan details to be applied.
+     * @param target The loan to be updated.
+     */
+    static void mergeNonNull(Loan source, Loan target) {
+        if (source.getUserId() != null) {
+            target.setUserId(source.getUserId());
         }
-        if (inputLoan.getLoanAmount() != null) {
-            existingLoan.setLoanAmount(inputLoan.getLoanAmount());
+        if (source.getLoanAmount() != null) {
+            target.setLoanAmount(source.getLoanAmount());
         }
-        if (inputLoan.getLoanNumber() != null) {
-            existingLoan.setLoanNumber(inputLoan.getLoanNumber());
+        if (source.getLoanNumber() != null) {
+            target.setLoanNumber(source.getLoanNumber());
         }
-        if (inputLoan.getLoanType() != null) {
-            existingLoan.setLoanType(inputLoan.getLoanType());
+        if (source.getLoanType() != null) {
+            target.setLoanType(source.getLoanType());
         }
-        if (inputLoan.getInterestRate() != null) {
-            existingLoan.setInterestRate(inputLoan.getInterestRate());
+        if (source.getInterestRate() != null) {
+            target.setInterestRate(source.getInterestRate());
         }
-        if (inputLoan.getTenureMonths() != 0) {
-            existingLoan.setTenureMonths(inputLoan.getTenureMonths());
+        if (source.getTenureMonths() != 0) {
+            target.setTenureMonths(source.getTenureMonths());
         }
-        if (inputLoan.getStartDate() != null) {
-            existingLoan.setStartDate(inputLoan.getStartDate());
+        if (source.getStartDate() != null) {
+            target.setStartDate(source.getStartDate());
         }
-        if (inputLoan.getEndDate() != null) {
-            existingLoan.setEndDate(inputLoan.getEndDate());
+        if (source.getEndDate() != null) {
+            target.setEndDate(source.getEndDate());
         }
-        if (inputLoan.getRemainingBalance() != null) {
-            existingLoan.setRemainingBalance(inputLoan.getRemainingBalance());
+        if (source.getRemainingBalance() != null) {
+            target.setRemainingBalance(source.getRemainingBalance());
         }
-        if (inputLoan.getLoanStatus() != null) {
-            existingLoan.setLoanStatus(inputLoan.getLoanStatus());
+        if (source.getLoanStatus() != null) {
+            target.setLoanStatus(source.getLoanStatus());
         }
+    }
+
+    /**
+     * Rejects a status change the loan lifecycle does not allow.
+     * @param loanId The ID of the loan.
+     * @param current The stored status, or null for loans stored without one.
+     * @param next The requested status, or null when the status is not changed.
+     * @throws IllegalStatusTransitionException if the transition is not allowed.
+     */
+    static void checkTransition(Long loanId, LoanStatus current, LoanStatus next) {
+        if (current != null && next != null && !current.canTransitionTo(next)) {
+            throw new IllegalStatusTransitionException(
+                    "Loan " + loanId + " cannot move from " + current + " to " + next);
+        }
+    }
+
+    private void saveChunk(List<Loan> loans, List<Integer> chunk, LoanBatchItemResult[] results) {
+        List<Loan> batch = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            batch.add(loans.get(index));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Loan> saved = loanMetrics.repository("issueLoans", () -> {
+                    List<Loan> inserted = loanRepository.saveAll(batch);
+                    loanRepository.flush();
+                    return inserted;
+                });
+                loanMetrics.event("issueLoans", () -> loanEventProducer.sendLoanIssuedMessages(saved));
+            });
+            for (int index : chunk) {
+                results[index] = success(index, loans.get(index));
+            }
+        } catch (Exception e) {
+            logger.warn("Batch insert of {} loans failed, retrying individually", chunk.size(), e);
+            for (int index : chunk) {
+                Loan loan = loans.get(index);
+                try {
+                    Loan saved = transactionTemplate.execute(status -> {
+                        // The failed persist assigned an id and version; without clearing both the
+                        // loan no longer looks new and saveAndFlush merges a copy instead
+                        loan.setId(null);
+                        loan.setVersion(null);
+                        Loan inserted = loanRepository.saveAndFlush(loan);
+                        loanEventProducer.sendLoanIssuedMessage(inserted);
+                        return inserted;
+                    });
+                    results[index] = success(index, saved);
+                } catch (Exception itemException) {
+                    loan.setId(null);
+                    loan.setVersion(null);
+                    results[index] = LoanBatchItemResult.builder().index(index).success(false)
+                            .error(itemException.getMessage()).build();
+                }
+            }
+        }
+    }
+
+    private static LoanPage toPage(List<LoanSummary> loans, int limit) {
+        if (loans.size() <= limit) {
+            return LoanPage.builder().items(loans).build();
+        }
+        List<LoanSummary> items = loans.subList(0, limit);
+        return LoanPage.builder().items(items).nextCursor(items.get(limit - 1).getId()).build();
+    }
+
+    private void countRepaidToZero(Loan loan) {
+        if (loan.getRemainingBalance().signum() == 0) {
+            loanMetrics.outcome(LoanMetrics.OUTCOME_REPAID_TO_ZERO, 1);
+        }
+    }
 
-        Loan updatedLoan = loanRepository.save(existingLoan);
-        loanEventProducer.sendLoanUpdatedMessage(updatedLoan);
-        logger.info("Loan details updated successfully for loanId: {}", inputLoan.getId());
-        return updatedLoan;
+    private ResourceNotFoundException loanNotFound(Long loanId) {
+        loanMetrics.outcome(LoanMetrics.OUTCOME_NOT_FOUND, 1);
+        return new ResourceNotFoundException("Loan not found with id: " + loanId);
+    }
+
+    private LoanBatchItemResult success(int index, Loan loan) {
+        return LoanBatchItemResult.builder().index(index).success(true)
+                .loanId(loan.getId()).loanNumber(loan.getLoanNumber()).build();
+    }
+
+    /**
+     * Checks the fields a new loan needs before its terms can be computed.
+     * @param loan The loan details.
+     * @return A description of the first problem found, or null if the loan is valid.
+     */
+    private String validateNewLoan(Loan loan) {
+        if (loan == null) {
+            return "Loan is missing";
+        }
+        if (loan.getUserId() == null) {
+            return "userId is required";
+        }
+        if (loan.getLoanType() == null) {
+            return "loanType is required";
+        }
+        if (loan.getLoanAmount() == null || loan.getLoanAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "loanAmount must be positive";
+        }
+        if (loan.getTenureMonths() <= 0) {
+            return "tenureMonths must be positive";
+        }
+        return null;
+    }
+
+    /**
+     * Fills in the loan number, dates, status, interest rate and balance of a new loan.
+     * @param loan The loan details.
+     */
+    private void prepareNewLoan(Loan loan) {
+        loan.setId(null);
+        loan.setLoanNumber(loanNumberGenerator.nextLoanNumber());
+        loan.setStartDate(LocalDate.now());
+        loan.setEndDate(LocalDate.now().plusMonths(loan.getTenureMonths()));
+        loan.setLoanStatus(LoanStatus.ACTIVE);
+        applyTerms(loan, amortizationEngine);
     }
 
     /**
-     * Generates a unique loan number.
-     * @return A randomly generated loan number.
+     * Sets the default interest rate and amortization method for the loan type when none was given
+     * and computes the opening balance as principal plus the scheduled interest.
+     * @param loan The loan details.
+     * @param amortizationEngine The engine used to total the schedule.
      */
-    private String generateLoanNumber() {
-        Random random = new Random();
-        int randomNumber = 100000000 + random.nextInt(900000000);
-        return "LN" + randomNumber;
+    static void applyTerms(Loan loan, AmortizationEngine amortizationEngine) {
+        // Set interest rate based on loan type if interest rate is null
+        if (loan.getInterestRate() == null) {
+            switch (loan.getLoanType()) {
+                case HOME:
+                    loan.setInterestRate(BigDecimal.valueOf(5.5));
+                    break;
+                case AUTO:
+                    loan.setInterestRate(BigDecimal.valueOf(7.0));
+                    break;
+                case PERSONAL:
+                    loan.setInterestRate(BigDecimal.valueOf(10.0));
+                    break;
+                default:
+                    loan.setInterestRate(BigDecimal.valueOf(8.0));
+            }
+        }
+
+        if (loan.getAmortizationMethod() == null) {
+            loan.setAmortizationMethod(loan.getLoanType().getDefaultAmortizationMethod());
+        }
+        loan.setRemainingBalance(amortizationEngine.totalPayable(
+                loan.getLoanAmount(), loan.getInterestRate(), loan.getTenureMonths(), loan.getAmortizationMethod()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.LoanStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Online migration of {@code loan_status} from full status names to the one-letter codes of
+ * {@link LoanStatus}. Rows are rewritten in short, auto-committed id ranges, so no statement holds
+ * more than {@code loan.status-migration.batch-size} row locks and the service keeps serving while
+ * it runs. Loading a row accepts both forms in the meantime. Enable it with
+ * {@code loan.status-migration.enabled=true} once no instance of the previous version is left to
+ * write full names. It is idempotent, so every instance may run it.
+ */
+@Component
+public class LoanStatusMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanStatusMigration.class);
+
+    private static final String LEGACY_ROWS = "LENGTH(loan_status) > 1";
+    private static final String MIGRATE_RANGE = "UPDATE loans SET loan_status = CASE UPPER(TRIM(loan_status)) "
+            + Arrays.stream(LoanStatus.values())
+                    .flatMap(status -> status.storedValues().stream().skip(1)
+                            .map(legacy -> "WHEN '" + legacy + "' THEN '" + status.getCode() + "' "))
+                    .collect(Collectors.joining())
+            + "ELSE loan_status END WHERE id > ? AND id <= ? AND " + LEGACY_ROWS;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private volatile boolean done;
+
+    @Autowired
+    public LoanStatusMigration(JdbcTemplate jdbcTemplate,
+                               @Value("${loan.status-migration.enabled:false}") boolean enabled,
+                               @Value("${loan.status-migration.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Rewrite every row still holding a full status name, one id range at a time.
+     */
+    @Scheduled(initialDelayString = "${loan.status-migration.initial-delay-ms:60000}",
+            fixedDelayString = "${loan.status-migration.interval-ms:600000}")
+    public void migrate() {
+        if (!enabled || done) {
+            return;
+        }
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM loans", Long.class);
+            long migrated = 0;
+            for (long from = 0; maxId != null && from < maxId; from += batchSize) {
+                migrated += jdbcTemplate.update(MIGRATE_RANGE, from, from + batchSize);
+            }
+            Long remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans WHERE " + LEGACY_ROWS, Long.class);
+            done = remaining == null || remaining == 0;
+            if (done) {
+                logger.info("Loan status migration complete, {} rows rewritten in this run", migrated);
+            } else {
+                List<String> unknown = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT loan_status FROM loans WHERE " + LEGACY_ROWS, String.class);
+                logger.warn("Loan status migration rewrote {} rows, {} rows hold unknown statuses {} and need fixing by hand",
+                        migrated, remaining, unknown);
+            }
+        } catch (Exception e) {
+            logger.error("Loan status migration failed, it will be retried", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.service.LoanNumberGenerator;
+import com.bank.app.loans_service.service.LoanNumbers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style generator: 41 bits of milliseconds since 2024-01-01, 10 bits of node ID and
+ * 12 bits of sequence. The timestamp and sequence live in a single {@link AtomicLong}, so a number
+ * is claimed with one CAS and no locking. Bursts beyond 4096 numbers per millisecond, or a clock
+ * that steps backwards, borrow from the next milliseconds instead of blocking, which keeps the
+ * output strictly increasing per node. Each instance must be given a distinct
+ * {@code loan.number.node-id}; there is no default, so an instance started without one fails
+ * instead of silently sharing node 0 with its peers.
+ */
+@Component
+@ConditionalOnProperty(name = "loan.number.strategy", havingValue = "snowflake", matchIfMissing = true)
+public class SnowflakeLoanNumberGenerator implements LoanNumberGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WIDTH = 19;  // Digits of Long.MAX_VALUE
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeLoanNumberGenerator.class);
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    @Autowired
+    public SnowflakeLoanNumberGenerator(@Value("${loan.number.node-id}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeLoanNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("loan.number.node-id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        logger.info("Generating loan numbers as snowflake node {}", nodeId);
+    }
+
+    @Override
+    public String nextLoanNumber() {
+        return LoanNumbers.format(nextId(), WIDTH);
+    }
+
+    /**
+     * Claim the next unique ID for this node.
+     * @return A positive ID, strictly greater than every ID previously returned by this instance.
+     */
+    long nextId() {
+        long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = lastTimeAndSequence.get();
+            next = now > previous ? now : previous + 1;
+        } while (!lastTimeAndSequence.compareAndSet(previous, next));
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bank.app.loans_service.service;
+
+/**
+ * Source of loan numbers. Implementations must be safe to call from many threads at once and
+ * must never hand out the same number twice, including across service instances.
+ */
+public interface LoanNumberGenerator {
+
+    /**
+     * Generate the next loan number.
+     * @return A new loan number carrying a check digit (see {@link LoanNumbers}).
+     */
+    String nextLoanNumber();
+}
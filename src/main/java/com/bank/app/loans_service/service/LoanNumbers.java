@@ -0,0 +1,70 @@
+package com.bank.app.loans_service.service;
+
+/**
+ * Formats and validates loan numbers. A loan number is {@code LN} followed by a fixed-width
+ * decimal body and a trailing Luhn check digit, so typos can be caught without a database lookup.
+ */
+public final class LoanNumbers {
+
+    private static final String PREFIX = "LN";
+
+    private LoanNumbers() {
+    }
+
+    /**
+     * Format a numeric value as a loan number.
+     * @param value The unique, non-negative value.
+     * @param width The number of body digits; the value is left-padded with zeros.
+     * @return The loan number including its check digit.
+     */
+    public static String format(long value, int width) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Loan number value must not be negative: " + value);
+        }
+        String digits = String.valueOf(value);
+        StringBuilder loanNumber = new StringBuilder(PREFIX.length() + width + 1).append(PREFIX);
+        for (int i = digits.length(); i < width; i++) {
+            loanNumber.append('0');
+        }
+        loanNumber.append(digits);
+        return loanNumber.append(checkDigit(loanNumber, PREFIX.length(), loanNumber.length())).toString();
+    }
+
+    /**
+     * Check the format and check digit of a loan number.
+     * @param loanNumber The loan number to check.
+     * @return True if the loan number is well formed and its check digit matches.
+     */
+    public static boolean isValid(String loanNumber) {
+        if (loanNumber == null || loanNumber.length() < PREFIX.length() + 2 || !loanNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < loanNumber.length(); i++) {
+            if (loanNumber.charAt(i) < '0' || loanNumber.charAt(i) > '9') {
+                return false;
+            }
+        }
+        int last = loanNumber.length() - 1;
+        return checkDigit(loanNumber, PREFIX.length(), last) == loanNumber.charAt(last);
+    }
+
+    /**
+     * Compute the Luhn check digit of the digits in [from, to).
+     */
+    private static char checkDigit(CharSequence digits, int from, int to) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = to - 1; i >= from; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
@@ -1,10 +1,19 @@
 package com.bank.app.loans_service.service;
 
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.LoanBatchItemResult;
+import com.bank.app.loans_service.dto.LoanPage;
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
 import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
 import com.bank.app.loans_service.exception.ResourceNotFoundException;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoanService {
 
@@ -15,6 +24,14 @@ public interface LoanService {
      */
     Loan issueLoan(Loan loan);
 
+    /**
+     * Issue a batch of new loans. Invalid or failing loans are reported individually
+     * without aborting the rest of the batch.
+     * @param loans The loan details.
+     * @return One result per submitted loan, in submission order.
+     */
+    List<LoanBatchItemResult> issueLoans(List<Loan> loans);
+
     /**
      * Get loans by user ID.
      * @param userId The ID of the user.
@@ -22,13 +39,57 @@ public interface LoanService {
      */
     List<Loan> getLoansByUserId(Long userId);
 
+    /**
+     * Get one page of a user's loans, ordered by loan ID.
+     * @param userId The ID of the user.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return The page and the cursor of the next one.
+     */
+    LoanPage getLoanPageByUserId(Long userId, Long after, int limit);
+
+    /**
+     * Search loans by any combination of criteria, one keyset page at a time.
+     * @param criteria The filters; unset fields do not filter.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param limit The maximum number of loans to return.
+     * @return The page and the cursor of the next one.
+     */
+    LoanPage searchLoans(LoanSearchCriteria criteria, Long after, int limit);
+
+    /**
+     * Count the loans in a status that end within a date range.
+     * @param status The status.
+     * @param from The first end date, inclusive.
+     * @param to The last end date, inclusive.
+     * @return The number of loans.
+     */
+    long countLoansDue(LoanStatus status, LocalDate from, LocalDate to);
+
+    /**
+     * Stream every loan of a user, ordered by loan ID, without loading them all into memory.
+     * @param userId The ID of the user.
+     * @param sink Receives each loan in turn.
+     */
+    void streamLoansByUserId(Long userId, Consumer<LoanSummary> sink);
+
+    /**
+     * Get the repayment schedule of a loan.
+     * @param loanId The ID of the loan.
+     * @return The installments for the loan's terms.
+     * @throws ResourceNotFoundException if the loan is not found.
+     */
+    AmortizationSchedule getLoanSchedule(Long loanId) throws ResourceNotFoundException;
+
     /**
      * Update loan status.
      * @param loanId The ID of the loan.
      * @param newStatus The new status of the loan.
      * @return The updated loan.
+     * @throws com.bank.app.loans_service.exception.IllegalStatusTransitionException if the loan cannot
+     * move from its status to the new one.
      */
-    Loan updateLoanStatus(Long loanId, String newStatus);
+    Loan updateLoanStatus(Long loanId, LoanStatus newStatus);
 
     /**
      * Repay a loan.
@@ -45,4 +106,14 @@ public interface LoanService {
      * @throws ResourceNotFoundException if the loan is not found.
      */
     Loan updateLoan(Loan loan) throws ResourceNotFoundException;
-}
\ No newline at end of file
+
+    /**
+     * Apply a JSON Merge Patch to a loan, writing only the patched columns.
+     * @param loanId The ID of the loan.
+     * @param expectedVersion The version the patch was made against, or null to patch any version.
+     * @param patch The columns to change.
+     * @return The patched loan.
+     * @throws ResourceNotFoundException if the loan is not found.
+     */
+    Loan patchLoan(Long loanId, Long expectedVersion, LoanPatch patch) throws ResourceNotFoundException;
+}
@@ -0,0 +1,11 @@
+package com.bank.app.loans_service.service;
+
+/**
+ * How concurrent repayments against the same loan are reconciled.
+ */
+public enum RepaymentMode {
+    /** Read-modify-write guarded by the loan version, retried on conflict. */
+    OPTIMISTIC,
+    /** Conditional UPDATE that decrements the balance in the database, after locking the row to read the state it replaces. */
+    ATOMIC
+}
@@ -0,0 +1,308 @@
+package com.bank.app.loans_service.stats;
+
+import com.bank.app.loans_service.dto.PortfolioStats;
+import com.bank.app.loans_service.dto.StatsBucket;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory portfolio totals: loan count and outstanding balance overall, by loan type, by status
+ * and, with {@code loan.stats.by-user.enabled}, by user, plus open loans by end date. Every committed loan change applies its delta
+ * (the previous state subtracted, the new state added) to {@link LongAdder}s, so concurrent writers
+ * never contend and a stats query is independent of the size of the book.
+ * <p>
+ * Only changes made through this instance are seen as deltas. The totals are therefore rebuilt
+ * from the database every {@code loan.stats.reconcile-interval-ms}, which also corrects any drift
+ * from changes made elsewhere. The rebuild reads one consistent snapshot, and changes committed
+ * while it runs are recorded and replayed onto the new totals before they are swapped in. Recording
+ * starts before the snapshot does, so a replayed change whose loan version the snapshot already
+ * holds is skipped rather than counted twice.
+ * <p>
+ * Per-user totals hold an entry for every user with loans, so they grow with the customer base;
+ * they are off by default.
+ */
+@Component
+public class LoanPortfolioStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoanPortfolioStats.class);
+
+    private static final int[] ENDING_WITHIN_DAYS = {30, 60, 90};
+    private static final int VERSION_QUERY_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean trackUsers;
+    private final Object swapLock = new Object();
+    private volatile Summary summary = new Summary();
+    // Changes committed while a rebuild runs, null otherwise; guarded by swapLock once non-null
+    private volatile Queue<LoanChangedEvent> duringRebuild;
+
+    @Autowired
+    public LoanPortfolioStats(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${loan.stats.by-user.enabled:false}") boolean trackUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        // Not read-only: a replica could trail the changes recorded during the rebuild
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.trackUsers = trackUsers;
+    }
+
+    /**
+     * Apply a committed loan change to the totals.
+     * @param event The loan change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanChanged(LoanChangedEvent event) {
+        // Read before the summary: a rebuild swaps the summary in before it stops recording
+        Queue<LoanChangedEvent> recording = duringRebuild;
+        Summary current = summary;
+        if (recording != null) {
+            synchronized (swapLock) {
+                current = summary;
+                if (duringRebuild != null) {
+                    duringRebuild.add(event);
+                }
+            }
+        }
+        apply(current, event);
+    }
+
+    private void apply(Summary current, LoanChangedEvent event) {
+        if (event.getPrevious() != null) {
+            current.apply(event.getPrevious(), -1, trackUsers);
+        }
+        current.apply(event.getLoan(), 1, trackUsers);
+    }
+
+    /**
+     * @param today The day the end date windows start from.
+     * @return The current portfolio totals.
+     */
+    public PortfolioStats snapshot(LocalDate today) {
+        Summary current = summary;
+        Map<LoanType, StatsBucket> byLoanType = new EnumMap<>(LoanType.class);
+        current.byLoanType.forEach((type, totals) -> byLoanType.put(type, totals.toBucket()));
+        Map<LoanStatus, StatsBucket> byStatus = new EnumMap<>(LoanStatus.class);
+        current.byStatus.forEach((status, totals) -> byStatus.put(status, totals.toBucket()));
+
+        Map<Integer, Long> endingWithin = new LinkedHashMap<>();
+        long ending = 0;
+        int day = 0;
+        for (int window : ENDING_WITHIN_DAYS) {
+            for (; day <= window; day++) {
+                LongAdder count = current.openByEndDate.get(today.plusDays(day));
+                ending += count == null ? 0 : count.sum();
+            }
+            endingWithin.put(window, ending);
+        }
+        return new PortfolioStats(current.total.toBucket(), byLoanType, byStatus, endingWithin, current.reconciledAt);
+    }
+
+    /**
+     * @return Whether per-user totals are kept.
+     */
+    public boolean isTrackingUsers() {
+        return trackUsers;
+    }
+
+    /**
+     * @param userId The ID of the user.
+     * @return The user's totals, zero if the user has no loans or users are not tracked.
+     */
+    public StatsBucket forUser(Long userId) {
+        Totals totals = summary.byUser.get(userId);
+        return totals == null ? new StatsBucket(0, BigDecimal.ZERO.setScale(2)) : totals.toBucket();
+    }
+
+    int trackedUsers() {
+        return summary.byUser.size();
+    }
+
+    /**
+     * Rebuild the totals from the database and swap them in.
+     */
+    @Scheduled(initialDelayString = "${loan.stats.reconcile-initial-delay-ms:0}",
+            fixedDelayString = "${loan.stats.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        long began = System.nanoTime();
+        Summary fresh = new Summary();
+        Queue<LoanChangedEvent> recording = new ConcurrentLinkedQueue<>();
+        Map<Long, Long> snapshotVersions = new HashMap<>();
+        duringRebuild = recording;
+        try {
+            // One repeatable-read transaction so every query sees the same snapshot
+            snapshotTransaction.executeWithoutResult(status -> {
+                load(fresh);
+                loadVersions(recording, snapshotVersions);
+            });
+        } catch (Exception e) {
+            duringRebuild = null;
+            logger.error("Portfolio stats reconciliation failed, keeping incremental totals", e);
+            return;
+        }
+        fresh.reconciledAt = Instant.now();
+        long driftCents;
+        int replayed = 0;
+        int skipped = 0;
+        synchronized (swapLock) {
+            for (LoanChangedEvent event : duringRebuild) {
+                if (inSnapshot(event, snapshotVersions)) {
+                    skipped++;
+                } else {
+                    apply(fresh, event);
+                    replayed++;
+                }
+            }
+            driftCents = fresh.total.balanceCents.sum() - summary.total.balanceCents.sum();
+            summary = fresh;
+            duringRebuild = null;
+        }
+        logger.info("Portfolio stats reconciled in {} ms with {} changes replayed and {} already in the snapshot, outstanding balance drift {}",
+                (System.nanoTime() - began) / 1_000_000, replayed, skipped, BigDecimal.valueOf(driftCents, 2));
+    }
+
+    /**
+     * Read the versions the snapshot holds for the loans changed since recording started. Changes
+     * recorded after this are applied, as they committed after the snapshot was taken.
+     */
+    private void loadVersions(Queue<LoanChangedEvent> recording, Map<Long, Long> snapshotVersions) {
+        List<Long> loanIds = new ArrayList<>(new LinkedHashSet<>(recording.stream()
+                .map(event -> event.getLoan().getId())
+                .toList()));
+        for (int from = 0; from < loanIds.size(); from += VERSION_QUERY_CHUNK) {
+            List<Long> chunk = loanIds.subList(from, Math.min(from + VERSION_QUERY_CHUNK, loanIds.size()));
+            jdbcTemplate.query("SELECT id, version FROM loans WHERE id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+                    rs -> {
+                        snapshotVersions.put(rs.getLong(1), rs.getLong(2));
+                    }, chunk.toArray());
+        }
+    }
+
+    private static boolean inSnapshot(LoanChangedEvent event, Map<Long, Long> snapshotVersions) {
+        Long held = snapshotVersions.get(event.getLoan().getId());
+        Long version = event.getLoan().getVersion();
+        return held != null && version != null && version <= held;
+    }
+
+    private void load(Summary fresh) {
+        jdbcTemplate.query("SELECT loan_type, COUNT(*), SUM(remaining_balance) FROM loans GROUP BY loan_type", rs -> {
+            long count = rs.getLong(2);
+            long cents = cents(rs.getBigDecimal(3));
+            String type = rs.getString(1);
+            if (type != null) {
+                fresh.byLoanType.computeIfAbsent(LoanType.valueOf(type), key -> new Totals()).add(count, cents);
+            }
+            fresh.total.add(count, cents);
+        });
+        // Until the status migration finishes a status may be stored both as its code and its name
+        jdbcTemplate.query("SELECT loan_status, COUNT(*), SUM(remaining_balance) FROM loans WHERE loan_status IN "
+                        + LoanStatus.sqlValues(LoanStatus.values()) + " GROUP BY loan_status",
+                rs -> {
+                    fresh.byStatus.computeIfAbsent(LoanStatus.fromDatabase(rs.getString(1)), key -> new Totals())
+                            .add(rs.getLong(2), cents(rs.getBigDecimal(3)));
+                });
+        jdbcTemplate.query("SELECT end_date, COUNT(*) FROM loans WHERE remaining_balance > 0 AND end_date >= ? GROUP BY end_date",
+                rs -> {
+                    fresh.openByEndDate.computeIfAbsent(rs.getDate(1).toLocalDate(), key -> new LongAdder()).add(rs.getLong(2));
+                }, Date.valueOf(LocalDate.now()));
+        if (trackUsers) {
+            jdbcTemplate.query("SELECT user_id, COUNT(*), SUM(remaining_balance) FROM loans WHERE user_id IS NOT NULL GROUP BY user_id",
+                    rs -> {
+                        fresh.byUser.computeIfAbsent(rs.getLong(1), key -> new Totals()).add(rs.getLong(2), cents(rs.getBigDecimal(3)));
+                    });
+        }
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Totals {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder balanceCents = new LongAdder();
+
+        void add(long loans, long cents) {
+            count.add(loans);
+            balanceCents.add(cents);
+        }
+
+        boolean isEmpty() {
+            return count.sum() == 0 && balanceCents.sum() == 0;
+        }
+
+        StatsBucket toBucket() {
+            return new StatsBucket(count.sum(), BigDecimal.valueOf(balanceCents.sum(), 2));
+        }
+    }
+
+    private static final class Summary {
+
+        private final Totals total = new Totals();
+        private final Map<LoanType, Totals> byLoanType = new ConcurrentHashMap<>();
+        private final Map<LoanStatus, Totals> byStatus = new ConcurrentHashMap<>();
+        private final Map<Long, Totals> byUser = new ConcurrentHashMap<>();
+        private final Map<LocalDate, LongAdder> openByEndDate = new ConcurrentHashMap<>();
+        private volatile Instant reconciledAt;
+
+        /**
+         * Add a loan's contribution to every group it belongs to.
+         * @param loan The loan state.
+         * @param sign 1 to add the state, -1 to remove it.
+         * @param trackUsers Whether per-user totals are kept.
+         */
+        void apply(Loan loan, int sign, boolean trackUsers) {
+            long cents = sign * cents(loan.getRemainingBalance());
+            total.add(sign, cents);
+            if (loan.getLoanType() != null) {
+                byLoanType.computeIfAbsent(loan.getLoanType(), key -> new Totals()).add(sign, cents);
+            }
+            if (loan.getLoanStatus() != null) {
+                byStatus.computeIfAbsent(loan.getLoanStatus(), key -> new Totals()).add(sign, cents);
+            }
+            if (trackUsers && loan.getUserId() != null) {
+                // Atomic per user, so an entry is dropped only when no other change is adding to it
+                byUser.compute(loan.getUserId(), (key, totals) -> {
+                    Totals updated = totals == null ? new Totals() : totals;
+                    updated.add(sign, cents);
+                    return updated.isEmpty() ? null : updated;
+                });
+            }
+            if (loan.getEndDate() != null && cents != 0) {
+                openByEndDate.computeIfAbsent(loan.getEndDate(), key -> new LongAdder()).add(sign);
+            }
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.bank.app.loans_service;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "loan.number.node-id=0")
 class LoansServiceApplicationTests {
 
 	@Test
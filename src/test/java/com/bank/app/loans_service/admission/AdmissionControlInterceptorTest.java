@@ -0,0 +1,102 @@
+package com.bank.app.loans_service.admission;
+
+import com.bank.app.loans_service.controller.LoanController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AdmissionControlInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HandlerMethod handler = handler();
+
+    @Test
+    void clientOverItsRateGets429() {
+        AdmissionControlInterceptor interceptor = interceptor(0.01, 2, 100);
+
+        assertTrue(admit(interceptor, "POST", "client-a").admitted);
+        assertTrue(admit(interceptor, "POST", "client-a").admitted);
+        Admission rejected = admit(interceptor, "POST", "client-a");
+
+        assertFalse(rejected.admitted);
+        assertEquals(429, rejected.response.getStatus());
+        assertTrue(Long.parseLong(rejected.response.getHeader("Retry-After")) > 1);
+        assertTrue(admit(interceptor, "POST", "client-b").admitted);
+        assertTrue(admit(interceptor, "GET", "client-a").admitted);
+        assertEquals(1, meterRegistry.get("loan.admission.rejected")
+                .tag("endpoint", "POST /loan/issue").tag("reason", "rate_limited").counter().count());
+    }
+
+    @Test
+    void requestsBeyondTheConcurrencyLimitGet503() {
+        AdmissionControlInterceptor interceptor = interceptor(1000, 1000, 2);
+
+        Admission first = admit(interceptor, "GET", "client-a");
+        admit(interceptor, "GET", "client-a");
+        Admission rejected = admit(interceptor, "GET", "client-a");
+
+        assertEquals(503, rejected.response.getStatus());
+        assertEquals("1", rejected.response.getHeader("Retry-After"));
+        assertTrue(admit(interceptor, "POST", "client-a").admitted);
+
+        interceptor.afterCompletion(first.request, first.response, handler, null);
+        assertTrue(admit(interceptor, "GET", "client-a").admitted);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndRecoversWhenItFalls() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 200, 1.5);
+        runAtFullLimit(limit, 200, TimeUnit.MILLISECONDS.toNanos(10));
+        int settled = limit.getLimit();
+        assertTrue(settled > 20, "limit should grow while latency is steady: " + settled);
+
+        runAtFullLimit(limit, 50, TimeUnit.MILLISECONDS.toNanos(100));
+        int degraded = limit.getLimit();
+        assertTrue(degraded < settled / 2, "limit should shrink when latency rises: " + degraded);
+
+        runAtFullLimit(limit, 200, TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(limit.getLimit() > degraded, "limit should recover: " + limit.getLimit());
+    }
+
+    private static void runAtFullLimit(GradientConcurrencyLimit limit, int requests, long rttNanos) {
+        for (int i = 0; i < requests; i++) {
+            while (limit.tryAcquire()) {
+                // Fill every permit so the limit is in use
+            }
+            limit.release(rttNanos, false);
+        }
+    }
+
+    private AdmissionControlInterceptor interceptor(double permitsPerSecond, double burst, int concurrencyLimit) {
+        return new AdmissionControlInterceptor(meterRegistry, "X-Api-Key", permitsPerSecond, burst, 1000,
+                Duration.ofMinutes(10), concurrencyLimit, 1, concurrencyLimit, 1.5);
+    }
+
+    private Admission admit(AdmissionControlInterceptor interceptor, String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/loan/issue");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/loan/issue");
+        request.addHeader("X-Api-Key", client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        return new Admission(interceptor.preHandle(request, response, handler), request, response);
+    }
+
+    private static HandlerMethod handler() {
+        try {
+            return new HandlerMethod(mock(LoanController.class), LoanController.class.getMethod("getLoansByUserId", Long.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Admission(boolean admitted, MockHttpServletRequest request, MockHttpServletResponse response) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.app.loans_service.config;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanDeltaNotification;
+import com.bank.app.loans_service.metrics.SampledInfoTurboFilter;
+import com.bank.core.entity.LoanNotification;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoanRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    LoanRuntimeHintsTest() {
+        new LoanRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void eventPayloadsCanBeBound() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Loan.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(LoanNotification.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(LoanDeltaNotification.class.getMethod("getChanges")).test(hints));
+    }
+
+    @Test
+    void classesCreatedByNameCanBeInstantiated() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructor(JsonSerializer.class.getConstructor()).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(SampledInfoTurboFilter.class.getMethod("setSampleRate", double.class)).test(hints));
+    }
+
+    @Test
+    void swaggerUiAssetsAreIncluded() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/resources/webjars/swagger-ui/4.18.1/index.html").test(hints));
+    }
+}
@@ -0,0 +1,145 @@
+package com.bank.app.loans_service.datasource;
+
+import com.bank.app.loans_service.cache.LoansByUserCache;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.metrics.LoanMetrics;
+import com.bank.app.loans_service.repo.LoansRepository;
+import com.bank.app.loans_service.service.LoanNumberGenerator;
+import com.bank.app.loans_service.service.LoanService;
+import com.bank.app.loans_service.service.RepaymentMode;
+import com.bank.app.loans_service.service.Impl.AmortizationEngine;
+import com.bank.app.loans_service.service.Impl.LoanEventProducer;
+import com.bank.app.loans_service.service.Impl.LoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Routes between two in-memory H2 databases standing in for the primary and a replica. Each one
+ * holds a row naming itself, so a query shows which database served it.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("routing_primary");
+        replica = database("routing_replica");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        Fixture fixture = new Fixture(Map.of("replica-0", replica), Duration.ofSeconds(5));
+
+        assertEquals("routing_replica", fixture.readOnly(() -> fixture.whoAmI()));
+        assertEquals("routing_primary", fixture.readWrite(() -> fixture.whoAmI()));
+    }
+
+    @Test
+    void recentWritersReadFromThePrimary() {
+        Fixture fixture = new Fixture(Map.of("replica-0", replica), Duration.ofSeconds(5));
+        fixture.tracker.onLoanChanged(new LoanChangedEvent("loan_repaid", Loan.builder().id(1L).userId(7L).build(), null));
+
+        assertEquals("routing_primary", fixture.readOnly(() -> fixture.tracker.read(7L, fixture::whoAmI)));
+        assertEquals("routing_replica", fixture.readOnly(() -> fixture.tracker.read(8L, fixture::whoAmI)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loansByUserAreReadFromTheReplicaUnlessTheUserWroteRecently() {
+        Fixture fixture = new Fixture(Map.of("replica-0", replica), Duration.ofSeconds(5));
+        LoansRepository loansRepository = mock(LoansRepository.class);
+        when(loansRepository.findByUserId(anyLong()))
+                .thenAnswer(invocation -> List.of(Loan.builder().loanNumber(fixture.whoAmI()).build()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LoanServiceImpl target = new LoanServiceImpl(loansRepository, mock(LoanEventProducer.class),
+                new LoansByUserCache(meterRegistry, mock(ObjectProvider.class), 100, Duration.ofMinutes(5)),
+                mock(LoanNumberGenerator.class), mock(AmortizationEngine.class), new LoanMetrics(meterRegistry),
+                fixture.tracker, fixture.transactionManager, 500, RepaymentMode.OPTIMISTIC, 5, 5);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addAdvice(new TransactionInterceptor(fixture.transactionManager, new AnnotationTransactionAttributeSource()));
+        LoanService loanService = (LoanService) proxyFactory.getProxy();
+        fixture.tracker.onLoanChanged(new LoanChangedEvent("loan_repaid", Loan.builder().id(1L).userId(7L).build(), null));
+
+        assertEquals("routing_replica", loanService.getLoansByUserId(8L).get(0).getLoanNumber());
+        assertEquals("routing_primary", loanService.getLoansByUserId(7L).get(0).getLoanNumber());
+    }
+
+    @Test
+    void unhealthyReplicaFallsBackToThePrimary() {
+        JdbcDataSource missing = new JdbcDataSource();
+        missing.setURL("jdbc:h2:mem:routing_missing;IFEXISTS=TRUE");
+        Fixture fixture = new Fixture(Map.of("replica-0", missing), Duration.ofSeconds(5));
+
+        assertEquals("routing_primary", fixture.readOnly(() -> fixture.whoAmI()));
+        assertTrue(fixture.routing.getHealthyReplicas().isEmpty());
+
+        fixture.routing.checkReplicas();
+        assertTrue(fixture.routing.getHealthyReplicas().isEmpty());
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(32))");
+        jdbcTemplate.execute("DELETE FROM whoami");
+        jdbcTemplate.update("INSERT INTO whoami VALUES (?)", name);
+        return dataSource;
+    }
+
+    private class Fixture {
+
+        final ReplicaRoutingDataSource routing;
+        final ReadYourWritesTracker tracker;
+        final JdbcTemplate jdbcTemplate;
+        final DataSourceTransactionManager transactionManager;
+        final TransactionTemplate transactionTemplate;
+
+        Fixture(Map<String, DataSource> replicas, Duration window) {
+            routing = new ReplicaRoutingDataSource(primary, replicas, 1);
+            tracker = new ReadYourWritesTracker(true, window, 100);
+            DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transactionManager = new DataSourceTransactionManager(dataSource);
+            transactionTemplate = new TransactionTemplate(transactionManager);
+        }
+
+        String whoAmI() {
+            return jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class);
+        }
+
+        String readOnly(Supplier<String> query) {
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate.execute(status -> query.get());
+        }
+
+        String readWrite(Supplier<String> query) {
+            transactionTemplate.setReadOnly(false);
+            return transactionTemplate.execute(status -> query.get());
+        }
+    }
+}
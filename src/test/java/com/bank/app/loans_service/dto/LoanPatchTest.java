@@ -0,0 +1,56 @@
+package com.bank.app.loans_service.dto;
+
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoanPatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private LoanPatch parse(String json) throws Exception {
+        return LoanPatch.fromMergePatch(objectMapper.readTree(json), objectMapper);
+    }
+
+    @Test
+    void setsPresentMembersAndClearsNullOnes() throws Exception {
+        LoanPatch patch = parse("{\"interestRate\": 7.25, \"amortizationMethod\": \"FLAT\", \"endDate\": null}");
+
+        assertEquals(new BigDecimal("7.25"), patch.getValues().get("interestRate"));
+        assertEquals(AmortizationMethod.FLAT, patch.getValues().get("amortizationMethod"));
+        assertTrue(patch.getValues().containsKey("endDate"));
+        assertEquals(Map.of("interestRate", "7.25", "amortizationMethod", "FLAT"), patch.changedValues());
+        assertEquals(List.of("endDate"), patch.clearedFields());
+        assertEquals(LocalDate.class, patch.typeOf("endDate"));
+    }
+
+    @Test
+    void onlyReadModelColumnsNeedThePreviousState() throws Exception {
+        assertFalse(parse("{\"interestRate\": 5, \"tenureMonths\": 24}").touchesReadModels());
+        assertTrue(parse("{\"remainingBalance\": 100}").touchesReadModels());
+        assertTrue(parse("{\"loanStatus\": \"CLOSED\"}").touchesReadModels());
+    }
+
+    @Test
+    void rejectsInvalidPatches() {
+        assertThrows(IllegalArgumentException.class, () -> parse("[]"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"loanNumber\": \"LN1\"}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"version\": 3}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"loanAmount\": null}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"tenureMonths\": 0}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"remainingBalance\": -1}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"loanType\": \"YACHT\"}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"loanStatus\": \"FROZEN\"}"));
+    }
+}
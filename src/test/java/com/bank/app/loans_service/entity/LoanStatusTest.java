@@ -0,0 +1,38 @@
+package com.bank.app.loans_service.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanStatusTest {
+
+    @Test
+    void closedAndDefaultedLoansCannotReopen() {
+        assertTrue(LoanStatus.OVERDUE.canTransitionTo(LoanStatus.ACTIVE));
+        assertTrue(LoanStatus.DEFAULTED.canTransitionTo(LoanStatus.CLOSED));
+        assertTrue(LoanStatus.CLOSED.canTransitionTo(LoanStatus.CLOSED));
+        assertFalse(LoanStatus.DEFAULTED.canTransitionTo(LoanStatus.ACTIVE));
+        assertFalse(LoanStatus.CLOSED.canTransitionTo(LoanStatus.ACTIVE));
+        assertFalse(LoanStatus.CLOSED.canTransitionTo(LoanStatus.OVERDUE));
+    }
+
+    @Test
+    void readsCodesAndLegacyNames() {
+        LoanStatusConverter converter = new LoanStatusConverter();
+
+        assertEquals("O", converter.convertToDatabaseColumn(LoanStatus.OVERDUE));
+        assertEquals(LoanStatus.OVERDUE, converter.convertToEntityAttribute("O"));
+        assertEquals(LoanStatus.OVERDUE, converter.convertToEntityAttribute("OVERDUE"));
+        assertEquals(LoanStatus.CLOSED, converter.convertToEntityAttribute("closed"));
+        assertEquals(LoanStatus.ACTIVE, converter.convertToEntityAttribute("PENDING"));
+        assertEquals(LoanStatus.CLOSED, converter.convertToEntityAttribute(" Paid "));
+        assertNull(converter.convertToEntityAttribute(null));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("FROZEN"));
+    }
+
+    @Test
+    void sqlValuesIncludeLegacyNames() {
+        assertEquals("('D', 'DEFAULTED', 'DEFAULT', 'WRITTEN_OFF', 'C', 'CLOSED', 'PAID', 'REPAID', 'SETTLED', 'COMPLETED')",
+                LoanStatus.sqlValues(LoanStatus.DEFAULTED, LoanStatus.CLOSED));
+    }
+}
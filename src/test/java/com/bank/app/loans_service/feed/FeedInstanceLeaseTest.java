@@ -0,0 +1,72 @@
+package com.bank.app.loans_service.feed;
+
+import com.bank.app.loans_service.repo.LoanFeedLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts two instances with the change feed enabled against one H2 database and checks that only
+ * the first may serve it.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:feed-lease;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FeedInstanceLeaseTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Autowired
+    private LoanFeedLeaseRepository leaseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void secondInstanceFailsToStartWhileTheFirstHoldsTheLease() {
+        leaseRepository.deleteAll();
+        FeedInstanceLease first = lease("first", START);
+        first.acquire();
+
+        assertTrue(first.isHeld());
+        assertThrows(IllegalStateException.class, () -> lease("second", START.plusSeconds(20)).acquire());
+
+        first.release();
+        FeedInstanceLease second = lease("second", START.plusSeconds(20));
+        second.acquire();
+        assertTrue(second.isHeld());
+    }
+
+    @Test
+    void instanceThatStoppedRenewingIsTakenOverAndStopsServing() {
+        leaseRepository.deleteAll();
+        FeedInstanceLease first = lease("first", START);
+        first.acquire();
+
+        FeedInstanceLease second = lease("second", START.plusSeconds(31));
+        second.acquire();
+
+        assertTrue(second.isHeld());
+        first.renew();
+        assertFalse(first.isHeld());
+    }
+
+    private FeedInstanceLease lease(String holder, Instant now) {
+        return new FeedInstanceLease(leaseRepository, transactionManager, Clock.fixed(now, ZoneOffset.UTC),
+                30_000, 10_000, holder);
+    }
+}
@@ -0,0 +1,225 @@
+package com.bank.app.loans_service.feed;
+
+import com.bank.app.loans_service.dto.LoanChange;
+import com.bank.app.loans_service.dto.LoanSnapshot;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.exception.FeedSubscriberLimitException;
+import com.bank.app.loans_service.exception.FeedUnavailableException;
+import com.bank.app.loans_service.repo.LoansRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanChangeFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoansRepository loansRepository = mock(LoansRepository.class);
+    // Sends run only when the test drains, like a sender pool that has fallen behind
+    private final Queue<Runnable> sender = new ArrayDeque<>();
+    private boolean serving = true;
+    private final LoanChangeFeed feed = new LoanChangeFeed(loansRepository, mock(PlatformTransactionManager.class), meterRegistry, 8, 4, 2, 60_000, sender::add, () -> serving);
+
+    @Test
+    void newSubscriberGetsSnapshotThenOnlyItsUsersChanges() {
+        Loan existing = loan(1L, 1L, 0);
+        when(loansRepository.findByUserId(1L)).thenReturn(List.of(existing));
+        publish(loan(9L, 2L, 0));
+
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(sink, 1L, null);
+        publish(loan(2L, 2L, 0));
+        publish(loan(1L, 1L, 1));
+        runSender();
+
+        assertEquals(List.of("snapshot", "loan_updated"), sink.names);
+        LoanSnapshot snapshot = (LoanSnapshot) sink.data.get(0);
+        assertEquals(1, snapshot.getSequence());
+        assertEquals(List.of(existing), snapshot.getLoans());
+        assertEquals(3, ((LoanChange) sink.data.get(1)).getSequence());
+    }
+
+    @Test
+    void reconnectWithLastEventIdReplaysOnlyMissedChanges() {
+        RecordingSink first = new RecordingSink();
+        LoanChangeFeed.Subscription subscription = feed.subscribe(first, null, null);
+        publish(loan(1L, 1L, 0));
+        runSender();
+        subscription.cancel();
+        publish(loan(2L, 1L, 0));
+        publish(loan(3L, 1L, 0));
+
+        RecordingSink second = new RecordingSink();
+        feed.subscribe(second, null, first.ids.get(first.ids.size() - 1));
+        publish(loan(4L, 1L, 0));
+        runSender();
+
+        assertEquals(List.of(2L, 3L, 4L), loanIds(second));
+        assertEquals(1, meterRegistry.get("loan.feed.resumed").counter().count());
+    }
+
+    @Test
+    void idFromAnotherRunOrBeyondRetentionStartsOver() {
+        RecordingSink probe = new RecordingSink();
+        feed.subscribe(probe, null, null).cancel();
+        String epoch = probe.ids.get(0).substring(0, probe.ids.get(0).lastIndexOf('-'));
+        for (long id = 1; id <= 20; id++) {
+            publish(loan(id, 1L, 0));
+        }
+
+        RecordingSink stale = new RecordingSink();
+        RecordingSink foreign = new RecordingSink();
+        feed.subscribe(stale, null, epoch + "-1");
+        feed.subscribe(foreign, null, "0-19");
+        runSender();
+
+        assertEquals(List.of("reset"), stale.names);
+        assertEquals(List.of("reset"), foreign.names);
+        assertEquals(20L, stale.data.get(0));
+        assertEquals(0, meterRegistry.get("loan.feed.resumed").counter().count());
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedWithoutHoldingUpOthers() {
+        RecordingSink slow = new RecordingSink();
+        RecordingSink fast = new RecordingSink();
+        feed.subscribe(slow, 1L, null);
+        feed.subscribe(fast, 2L, null);
+        runSender();
+
+        for (long id = 1; id <= 5; id++) {
+            publish(loan(id, 1L, 0));
+        }
+        publish(loan(6L, 2L, 0));
+        runSender();
+
+        assertTrue(slow.closed);
+        assertEquals(List.of("snapshot"), slow.names);
+        assertFalse(fast.closed);
+        assertEquals(List.of(6L), loanIds(fast));
+        assertEquals(1, meterRegistry.get("loan.feed.dropped").counter().count());
+        assertEquals(1, meterRegistry.get("loan.feed.subscribers").gauge().value());
+
+        // The dropped subscriber picks up where it left off
+        RecordingSink resumed = new RecordingSink();
+        feed.subscribe(resumed, 1L, slow.ids.get(0));
+        runSender();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), loanIds(resumed));
+    }
+
+    @Test
+    void subscribersBeyondTheLimitAreRejected() {
+        feed.subscribe(new RecordingSink(), null, null);
+        LoanChangeFeed.Subscription second = feed.subscribe(new RecordingSink(), null, null);
+
+        assertThrows(FeedSubscriberLimitException.class, () -> feed.subscribe(new RecordingSink(), null, null));
+        second.cancel();
+        assertNotNull(feed.subscribe(new RecordingSink(), null, null));
+    }
+
+    @Test
+    void heartbeatDisconnectsSubscribersThatWentAway() {
+        RecordingSink gone = new RecordingSink();
+        feed.subscribe(gone, null, null);
+        runSender();
+        gone.failing = true;
+
+        feed.heartbeat();
+
+        assertTrue(gone.closed);
+        assertEquals(0, meterRegistry.get("loan.feed.subscribers").gauge().value());
+    }
+
+    @Test
+    void changesCarryACopyOfTheLoan() {
+        RecordingSink sink = new RecordingSink();
+        feed.subscribe(sink, null, null);
+        LoanChangedEvent event = new LoanChangedEvent("loan_updated", loan(1L, 1L, 0), null);
+        feed.onLoanChanged(event);
+        // Another listener changing the shared loan does not reach the queued change
+        event.getLoan().setVersion(1L);
+        runSender();
+
+        assertEquals(0L, ((LoanChange) sink.data.get(1)).getLoan().getVersion());
+    }
+
+    @Test
+    void losingTheLeaseClosesStreamsAndRejectsNewOnes() {
+        RecordingSink open = new RecordingSink();
+        feed.subscribe(open, null, null);
+        runSender();
+        serving = false;
+
+        feed.heartbeat();
+
+        assertTrue(open.closed);
+        assertEquals(0, meterRegistry.get("loan.feed.subscribers").gauge().value());
+        assertThrows(FeedUnavailableException.class, () -> feed.subscribe(new RecordingSink(), null, null));
+    }
+
+    private void publish(Loan loan) {
+        feed.onLoanChanged(new LoanChangedEvent("loan_updated", loan, null));
+    }
+
+    private void runSender() {
+        Runnable task;
+        while ((task = sender.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static List<Long> loanIds(RecordingSink sink) {
+        List<Long> ids = new ArrayList<>();
+        for (Object data : sink.data) {
+            if (data instanceof LoanChange change) {
+                ids.add(change.getLoan().getId());
+            }
+        }
+        return ids;
+    }
+
+    private static Loan loan(Long id, Long userId, long version) {
+        return Loan.builder().id(id).userId(userId).version(version).build();
+    }
+
+    private static final class RecordingSink implements FeedSink {
+
+        private final List<String> ids = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> data = new ArrayList<>();
+        private boolean failing;
+        private boolean closed;
+
+        @Override
+        public void send(String id, String name, Object payload) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            ids.add(id);
+            names.add(name);
+            data.add(payload);
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
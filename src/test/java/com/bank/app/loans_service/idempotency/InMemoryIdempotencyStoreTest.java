@@ -0,0 +1,97 @@
+package com.bank.app.loans_service.idempotency;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+
+    private static final TypeReference<String> BODY = new TypeReference<>() {
+    };
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+    @Test
+    void duplicateGetsTheStoredResponse() {
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<String> first = store.execute("key-1", "repay-1", BODY, () -> ok(executions));
+        ResponseEntity<String> retry = store.execute("key-1", "repay-1", BODY, () -> ok(executions));
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        store.execute("key-1", "repay-1", BODY, () -> ok(new AtomicInteger()));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, store.execute("key-1", "repay-2", BODY, () -> ok(new AtomicInteger())).getStatusCode());
+    }
+
+    @Test
+    void failedResponsesAreNotKept() {
+        AtomicInteger executions = new AtomicInteger();
+        store.execute("key-1", "repay-1", BODY, () -> {
+            executions.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
+
+        assertEquals(HttpStatus.OK, store.execute("key-1", "repay-1", BODY, () -> ok(executions)).getStatusCode());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<ResponseEntity<String>> original = pool.submit(() -> store.execute("key-1", "repay-1", BODY, () -> {
+                running.countDown();
+                await(release);
+                return ok(executions);
+            }));
+            running.await();
+            List<Future<ResponseEntity<String>>> duplicates = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                duplicates.add(pool.submit(() -> store.execute("key-1", "repay-1", BODY, () -> ok(executions))));
+            }
+            release.countDown();
+
+            assertEquals(HttpStatus.OK, original.get().getStatusCode());
+            for (Future<ResponseEntity<String>> duplicate : duplicates) {
+                assertEquals(original.get().getBody(), duplicate.get().getBody());
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ResponseEntity<String> ok(AtomicInteger executions) {
+        return ResponseEntity.ok("execution-" + executions.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
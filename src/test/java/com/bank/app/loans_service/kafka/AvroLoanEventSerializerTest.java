@@ -0,0 +1,76 @@
+package com.bank.app.loans_service.kafka;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.service.Impl.LoanEventProducer;
+import com.bank.core.entity.LoanNotification;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvroLoanEventSerializerTest {
+
+    private static final String TOPIC = "loan-service-topic";
+
+    private final InMemorySchemaRegistry schemaRegistry = new InMemorySchemaRegistry();
+    private final AvroLoanEventSerializer serializer = new AvroLoanEventSerializer(schemaRegistry);
+
+    @Test
+    void roundTripsThroughTheRegistry() {
+        LoanNotification notification = notification();
+
+        byte[] encoded = serializer.serialize(TOPIC, notification);
+        LoanNotification decoded = new AvroLoanEventDeserializer<>(schemaRegistry, LoanNotification.class)
+                .deserialize(TOPIC, encoded);
+
+        assertEquals(AvroLoanEventSerializer.MAGIC_BYTE, encoded[0]);
+        assertEquals(1, schemaRegistry.latest(TOPIC + "-value").version());
+        assertEquals(notification.getLoanNumber(), decoded.getLoanNumber());
+        assertEquals(0, notification.getRemainingBalance().compareTo(decoded.getRemainingBalance()));
+    }
+
+    @Test
+    void reusesTheSchemaIdForTheSameClass() {
+        serializer.serialize(TOPIC, notification());
+        serializer.serialize("other-topic", notification());
+
+        assertEquals(1, schemaRegistry.latest(TOPIC + "-value").id());
+        assertEquals(2, schemaRegistry.latest("other-topic-value").id());
+        assertEquals(schemaRegistry.latest(TOPIC + "-value"),
+                schemaRegistry.register(TOPIC + "-value", schemaRegistry.getById(1).schema()));
+    }
+
+    @Test
+    void isLessThanHalfTheSizeOfJson() {
+        LoanNotification notification = notification();
+        try (JsonSerializer<Object> json = new JsonSerializer<>()) {
+            int jsonBytes = json.serialize(TOPIC, notification).length;
+            int avroBytes = serializer.serialize(TOPIC, notification).length;
+            // Field names and decimal text dominate the JSON; Avro carries neither
+            assertTrue(avroBytes * 2 < jsonBytes, () -> avroBytes + " bytes as Avro, " + jsonBytes + " bytes as JSON");
+        }
+    }
+
+    static LoanNotification notification() {
+        Loan loan = Loan.builder()
+                .id(42L)
+                .userId(7L)
+                .loanAmount(new BigDecimal("250000.00"))
+                .loanNumber("0001234567890123456")
+                .loanType(LoanType.HOME)
+                .interestRate(new BigDecimal("8.5"))
+                .tenureMonths(240)
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2045, 1, 1))
+                .remainingBalance(new BigDecimal("520683.17"))
+                .loanStatus(LoanStatus.ACTIVE)
+                .build();
+        LoanNotification notification = LoanEventProducer.toNotification(loan);
+        return notification;
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.app.loans_service.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends the same keyed workload with each producer profile against an embedded broker and checks
+ * from the producer metrics that the high-throughput profile compresses its batches and so puts far
+ * fewer bytes on the wire; throughput is logged for comparison. Also checks that loan-id keys spread
+ * over all partitions and that every loan's events arrive in the order they were sent.
+ */
+@EmbeddedKafka(partitions = 3, topics = {"throughput-low-latency", "throughput-high-throughput"})
+class KafkaProducerProfileThroughputTest {
+
+    private static final int LOANS = 500;
+    private static final int EVENTS_PER_LOAN = 20;
+    private static final String PAYLOAD = "x".repeat(300);
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaProducerProfileThroughputTest.class);
+
+    @Test
+    void comparesProducerProfiles(EmbeddedKafkaBroker broker) throws Exception {
+        Run lowLatency = run(broker, KafkaProducerProfile.LOW_LATENCY, "throughput-low-latency");
+        Run highThroughput = run(broker, KafkaProducerProfile.HIGH_THROUGHPUT, "throughput-high-throughput");
+        logger.info("low-latency: {} records/s, high-throughput: {} records/s",
+                Math.round(lowLatency.recordsPerSecond()), Math.round(highThroughput.recordsPerSecond()));
+
+        assertTrue(highThroughput.compressionRate() < 0.5, () -> "compression rate " + highThroughput.compressionRate());
+        assertTrue(highThroughput.bytesSent() * 2 < lowLatency.bytesSent(),
+                () -> highThroughput.bytesSent() + " bytes sent by high-throughput, " + lowLatency.bytesSent() + " by low-latency");
+    }
+
+    private Run run(EmbeddedKafkaBroker broker, KafkaProducerProfile profile, String topic) throws Exception {
+        Map<String, Object> config = new HashMap<>(profile.settings());
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        DefaultKafkaProducerFactory<String, String> producerFactory =
+                new DefaultKafkaProducerFactory<>(config, new StringSerializer(), new StringSerializer());
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+        template.send(topic, "warmup", PAYLOAD).get(10, TimeUnit.SECONDS);
+
+        long began = System.nanoTime();
+        List<CompletableFuture<SendResult<String, String>>> acks = new ArrayList<>(LOANS * EVENTS_PER_LOAN);
+        for (int sequence = 0; sequence < EVENTS_PER_LOAN; sequence++) {
+            for (int loanId = 1; loanId <= LOANS; loanId++) {
+                acks.add(template.send(new ProducerRecord<>(topic, String.valueOf(loanId), sequence + ":" + PAYLOAD)));
+            }
+        }
+        CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+        double recordsPerSecond = acks.size() * 1_000_000_000.0 / (System.nanoTime() - began);
+        Run run = new Run(recordsPerSecond, producerMetric(template, "compression-rate-avg"),
+                producerMetric(template, "outgoing-byte-total"));
+        producerFactory.destroy();
+
+        assertKeyedOrdering(broker, topic);
+        return run;
+    }
+
+    private static double producerMetric(KafkaTemplate<String, String> template, String name) {
+        return template.metrics().entrySet().stream()
+                .filter(metric -> metric.getKey().group().equals("producer-metrics") && metric.getKey().name().equals(name))
+                .mapToDouble(metric -> ((Number) metric.getValue().metricValue()).doubleValue())
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No producer metric " + name));
+    }
+
+    private void assertKeyedOrdering(EmbeddedKafkaBroker broker, String topic) {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(topic + "-verifier", "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        try (var consumer = new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new StringDeserializer())
+                .createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, topic);
+            Map<String, Integer> lastSequence = new HashMap<>();
+            Set<Integer> partitions = new HashSet<>();
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (received < LOANS * EVENTS_PER_LOAN && System.currentTimeMillis() < deadline) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                for (ConsumerRecord<String, String> record : records) {
+                    if ("warmup".equals(record.key())) {
+                        continue;
+                    }
+                    int sequence = Integer.parseInt(record.value().substring(0, record.value().indexOf(':')));
+                    Integer previous = lastSequence.put(record.key(), sequence);
+                    assertTrue(previous == null || previous < sequence, "Out of order for loan " + record.key());
+                    partitions.add(record.partition());
+                    received++;
+                }
+            }
+            assertEquals(LOANS * EVENTS_PER_LOAN, received);
+            assertEquals(3, partitions.size());
+        }
+    }
+
+    private record Run(double recordsPerSecond, double compressionRate, double bytesSent) {
+    }
+}
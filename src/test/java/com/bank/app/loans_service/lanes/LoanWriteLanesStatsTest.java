@@ -0,0 +1,155 @@
+package com.bank.app.loans_service.lanes;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.repo.LoanOutboxRepository;
+import com.bank.app.loans_service.repo.LoansRepository;
+import com.bank.app.loans_service.service.Impl.LoanEventProducer;
+import com.bank.app.loans_service.stats.LoanPortfolioStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Commits two repayments of one loan in a single lane batch and checks that the portfolio stats,
+ * which apply each change after commit, end up with the balance the database holds, and that each
+ * change carries the version its write committed with.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lanes;DB_CLOSE_DELAY=-1",
+        "loan.stats.by-user.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoanEventProducer.class, LoanPortfolioStats.class, LoanWriteLanesStatsTest.Changes.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanWriteLanesStatsTest {
+
+    @Autowired
+    private LoansRepository loansRepository;
+
+    @Autowired
+    private LoanOutboxRepository outboxRepository;
+
+    @Autowired
+    private LoanEventProducer loanEventProducer;
+
+    @Autowired
+    private LoanPortfolioStats stats;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Changes changes;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private LoanWriteLanes lanes;
+
+    @AfterEach
+    void shutdown() {
+        lanes.shutdown();
+        callers.shutdownNow();
+        outboxRepository.deleteAll();
+        loansRepository.deleteAll();
+    }
+
+    @Test
+    void repaymentsOfOneLoanInOneBatchMoveTheStatsByTheirSum() throws Exception {
+        lanes = new LoanWriteLanes(transactionManager, meterRegistry, 1, 10, 8);
+        Long loanId = loansRepository.save(Loan.builder()
+                .userId(7L)
+                .loanAmount(new BigDecimal("100.00"))
+                .loanNumber("LN-LANES")
+                .loanType(LoanType.PERSONAL)
+                .interestRate(BigDecimal.TEN)
+                .tenureMonths(12)
+                .endDate(LocalDate.now().plusYears(1))
+                .remainingBalance(new BigDecimal("100.00"))
+                .loanStatus(LoanStatus.ACTIVE)
+                .build()).getId();
+        stats.reconcile();
+
+        // Hold the lane so both repayments queue up and are committed together
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> blocker = CompletableFuture.supplyAsync(() -> lanes.execute(0L, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }), callers);
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> lanes.execute(loanId, () -> repay(loanId)), callers);
+        awaitQueued(1);
+        CompletableFuture<Object> second = CompletableFuture.supplyAsync(() -> lanes.execute(loanId, () -> repay(loanId)), callers);
+        awaitQueued(2);
+        release.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2.0, meterRegistry.get("loan.lanes.batch.size").summary().max());
+        assertEquals(0, meterRegistry.get("loan.lanes.batch.replayed").counter().count());
+        assertEquals(0, new BigDecimal("80.00").compareTo(loansRepository.findById(loanId).orElseThrow().getRemainingBalance()));
+        assertEquals(new BigDecimal("80.00"), stats.snapshot(LocalDate.now()).getTotal().getOutstandingBalance());
+        assertEquals(new BigDecimal("80.00"), stats.forUser(7L).getOutstandingBalance());
+        assertEquals(List.of(1L, 2L), changes.versions);
+    }
+
+    private Object repay(Long loanId) {
+        Loan loan = loansRepository.findById(loanId).orElseThrow();
+        Loan previous = loan.toBuilder().build();
+        loan.setRemainingBalance(loan.getRemainingBalance().subtract(BigDecimal.TEN));
+        loanEventProducer.sendLoanRepaidMessage(loansRepository.save(loan), previous);
+        return null;
+    }
+
+    @Component
+    static class Changes {
+
+        private final List<Long> versions = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener
+        public void onLoanChanged(LoanChangedEvent event) {
+            versions.add(event.getLoan().getVersion());
+        }
+    }
+
+    private void awaitQueued(int writes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("loan.lanes.queued").gauge().value() < writes && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(writes, (int) meterRegistry.get("loan.lanes.queued").gauge().value());
+    }
+}
@@ -0,0 +1,95 @@
+package com.bank.app.loans_service.lanes;
+
+import com.bank.app.loans_service.exception.WriteLaneFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class LoanWriteLanesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private LoanWriteLanes lanes;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        lanes.shutdown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void fullLaneRejectsWrites() throws Exception {
+        lanes = new LoanWriteLanes(mock(PlatformTransactionManager.class), meterRegistry, 1, 2, 8);
+        CompletableFuture<Integer> blocker = blockLane();
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> lanes.execute(1L, () -> 1), callers);
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> lanes.execute(2L, () -> 2), callers);
+        awaitQueued(2);
+
+        assertThrows(WriteLaneFullException.class, () -> lanes.execute(3L, () -> 3));
+        assertEquals(1, meterRegistry.get("loan.lanes.rejected").counter().count());
+
+        release.countDown();
+        assertEquals(0, blocker.get(5, TimeUnit.SECONDS));
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failedWriteInBatchOnlyFailsItsCaller() throws Exception {
+        lanes = new LoanWriteLanes(mock(PlatformTransactionManager.class), meterRegistry, 1, 10, 8);
+        blockLane();
+        CompletableFuture<String> before = CompletableFuture.supplyAsync(() -> lanes.execute(1L, () -> "before"), callers);
+        awaitQueued(1);
+        CompletableFuture<String> failing = CompletableFuture.supplyAsync(() -> lanes.execute(1L, () -> {
+            throw new IllegalStateException("write failed");
+        }), callers);
+        awaitQueued(2);
+        CompletableFuture<String> after = CompletableFuture.supplyAsync(() -> lanes.execute(1L, () -> "after"), callers);
+        awaitQueued(3);
+
+        release.countDown();
+        assertEquals("before", before.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals("after", after.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("loan.lanes.batch.replayed").counter().count());
+    }
+
+    private CompletableFuture<Integer> blockLane() throws InterruptedException {
+        CompletableFuture<Integer> blocker = CompletableFuture.supplyAsync(() -> lanes.execute(0L, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }), callers);
+        started.await(5, TimeUnit.SECONDS);
+        return blocker;
+    }
+
+    private void awaitQueued(int writes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("loan.lanes.queued").gauge().value() < writes && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(writes, (int) meterRegistry.get("loan.lanes.queued").gauge().value());
+    }
+}
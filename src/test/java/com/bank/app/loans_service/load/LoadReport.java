@@ -0,0 +1,98 @@
+package com.bank.app.loans_service.load;
+
+import lombok.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of one {@link LoanLoadTest} run, written as JSON so runs can be compared later.
+ * Errors are transport failures and 5xx responses; 4xx responses such as conflicts on a hot loan
+ * are expected under contention and only counted by status.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadReport {
+
+    private String label;
+    private String startedAt;
+    private long durationMs;
+    private int concurrency;
+    private double targetRate;  // Requests per second, 0 for a closed loop
+    private int users;
+    private double skew;
+    private Map<String, Integer> mix;
+    private long requests;
+    private double throughput;  // Requests per second
+    private double errorRate;
+    private long outboxDrainMs;  // Time after the run until every event was acknowledged by the broker
+    private Map<String, OperationReport> operations;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class OperationReport {
+
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50Ms;
+        private double p90Ms;
+        private double p99Ms;
+        private double p999Ms;
+        private double maxMs;
+        private Map<Integer, Long> statuses;  // -1 for requests that got no response
+    }
+
+    /**
+     * Latencies and statuses of one operation, shared by all load threads.
+     */
+    static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void record(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+            if (status < 0 || status >= 500) {
+                errors++;
+            }
+        }
+
+        synchronized OperationReport report(long durationMs) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return OperationReport.builder()
+                    .requests(count)
+                    .errors(errors)
+                    .throughput(count * 1000.0 / Math.max(durationMs, 1))
+                    .p50Ms(percentile(sorted, 0.50))
+                    .p90Ms(percentile(sorted, 0.90))
+                    .p99Ms(percentile(sorted, 0.99))
+                    .p999Ms(percentile(sorted, 0.999))
+                    .maxMs(sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6)
+                    .statuses(new TreeMap<>(statuses))
+                    .build();
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.bank.app.loans_service.load;
+
+import com.bank.app.loans_service.load.LoanWorkload.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a configurable mix of issue, repay, status, update and user lookup calls through the
+ * whole service (HTTP, JPA on an in-memory H2 database, the outbox and an embedded Kafka broker)
+ * and reports throughput, latency percentiles and error rate per operation. Eureka and the config
+ * server are disabled. Only runs with {@code mvn -Pload-test test}; every {@code loan.load.*}
+ * setting can be passed as a {@code -D} system property.
+ * <p>
+ * With {@code loan.load.rate} above 0 each thread sends at a fixed pace and latency is measured
+ * from when a request was due, so a stall shows up in the percentiles instead of just slowing
+ * the load down. With the default of 0 every thread sends its next request as soon as the last
+ * one returns.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.discovery.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "loan.number.node-id=1",
+        "logging.level.com.bank.app.loans_service=WARN",
+        "logging.level.org.apache.kafka=WARN"
+})
+@EmbeddedKafka(partitions = 3, topics = "loan-service-topic", bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class LoanLoadTest {
+
+    private static final String[] LOAN_TYPES = {"PERSONAL", "HOME", "AUTO"};
+    private static final int SEED_BATCH = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${loan.load.label:local}")
+    private String label;
+
+    @Value("${loan.load.duration:PT30S}")
+    private Duration duration;
+
+    @Value("${loan.load.warmup:PT10S}")
+    private Duration warmup;
+
+    @Value("${loan.load.concurrency:32}")
+    private int concurrency;
+
+    @Value("${loan.load.rate:0}")
+    private double rate;
+
+    @Value("${loan.load.users:1000}")
+    private int users;
+
+    @Value("${loan.load.skew:1.0}")
+    private double skew;
+
+    @Value("${loan.load.mix:issue=10,repay=30,status=5,update=10,lookup=45}")
+    private String mix;
+
+    @Value("${loan.load.seed:42}")
+    private long seed;
+
+    @Value("${loan.load.report-dir:target/load-reports}")
+    private String reportDir;
+
+    @Value("${loan.load.baseline:}")
+    private String baseline;
+
+    @Value("${loan.load.max-error-rate:0.01}")
+    private double maxErrorRate;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<Long, List<Long>> loansByUser = new ConcurrentHashMap<>();
+
+    @Test
+    void runsTheWorkload() throws Exception {
+        LoanWorkload workload = new LoanWorkload(LoanWorkload.parseMix(mix), users, skew);
+        seedLoans();
+        run(workload, warmup, null);
+
+        Map<Operation, LoadReport.Recorder> recorders = new EnumMap<>(Operation.class);
+        workload.getMix().keySet().forEach(operation -> recorders.put(operation, new LoadReport.Recorder()));
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        long elapsedMs = run(workload, duration, recorders);
+        long drainMs = awaitOutboxDrained();
+
+        LoadReport report = report(workload, recorders, startedAt, elapsedMs, drainMs);
+        Path file = write(report);
+        print(report, file);
+        assertTrue(report.getErrorRate() <= maxErrorRate,
+                "Error rate " + report.getErrorRate() + " is above " + maxErrorRate + ", see " + file);
+    }
+
+    private void seedLoans() throws Exception {
+        for (int first = 1; first <= users; first += SEED_BATCH) {
+            int last = Math.min(first + SEED_BATCH - 1, users);
+            ArrayNode loans = objectMapper.createArrayNode();
+            for (long userId = first; userId <= last; userId++) {
+                loans.add(newLoan(userId, new Random(seed + userId)));
+            }
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/loan/issue/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(loans.toString())));
+            assertEquals(201, response.statusCode(), response.body());
+            for (JsonNode result : objectMapper.readTree(response.body())) {
+                remember(first + result.get("index").asLong(), result.get("loanId").asLong());
+            }
+        }
+    }
+
+    private long run(LoanWorkload workload, Duration runFor, Map<Operation, LoadReport.Recorder> recorders) throws Exception {
+        if (runFor.isZero()) {
+            return 0;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        long began = System.nanoTime();
+        long deadline = began + runFor.toNanos();
+        // Each thread's share of the target rate
+        long intervalNanos = rate > 0 ? (long) (concurrency * 1e9 / rate) : 0;
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < concurrency; worker++) {
+            Random random = new Random(seed * 31 + worker + (recorders == null ? 0 : concurrency));
+            long firstDue = began + (intervalNanos * worker) / concurrency;
+            workers.add(pool.submit(() -> {
+                long due = firstDue;
+                while (true) {
+                    if (intervalNanos > 0) {
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    } else {
+                        due = System.nanoTime();
+                    }
+                    if (due >= deadline) {
+                        return null;
+                    }
+                    Operation operation = workload.nextOperation(random);
+                    int status = execute(operation, workload, random);
+                    if (recorders != null) {
+                        recorders.get(operation).record(System.nanoTime() - due, status);
+                    }
+                    due += intervalNanos;
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        return (System.nanoTime() - began) / 1_000_000;
+    }
+
+    private int execute(Operation operation, LoanWorkload workload, Random random) {
+        long userId = workload.nextUser(random);
+        try {
+            switch (operation) {
+                case ISSUE -> {
+                    HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/loan/issue"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(newLoan(userId, random).toString())));
+                    if (response.statusCode() / 100 == 2) {
+                        remember(userId, objectMapper.readTree(response.body()).get("id").asLong());
+                    }
+                    return response.statusCode();
+                }
+                case REPAY -> {
+                    return send(HttpRequest.newBuilder(uri("/loan/repay/" + loanOf(userId, random) + "?paymentAmount=10"))
+                            .PUT(HttpRequest.BodyPublishers.noBody())).statusCode();
+                }
+                case STATUS -> {
+                    String status = random.nextBoolean() ? "OVERDUE" : "ACTIVE";
+                    return send(HttpRequest.newBuilder(uri("/loan/status/" + loanOf(userId, random) + "?newStatus=" + status))
+                            .PUT(HttpRequest.BodyPublishers.noBody())).statusCode();
+                }
+                case UPDATE -> {
+                    ObjectNode patch = objectMapper.createObjectNode()
+                            .put("interestRate", BigDecimal.valueOf(500 + random.nextInt(700), 2));
+                    return send(HttpRequest.newBuilder(uri("/loan/" + loanOf(userId, random)))
+                            .header("Content-Type", "application/merge-patch+json")
+                            .method("PATCH", HttpRequest.BodyPublishers.ofString(patch.toString()))).statusCode();
+                }
+                case LOOKUP -> {
+                    return send(HttpRequest.newBuilder(uri("/loan/user/" + userId)).GET()).statusCode();
+                }
+                default -> throw new IllegalStateException("Unknown operation " + operation);
+            }
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private ObjectNode newLoan(long userId, Random random) {
+        return objectMapper.createObjectNode()
+                .put("userId", userId)
+                .put("loanType", LOAN_TYPES[random.nextInt(LOAN_TYPES.length)])
+                .put("loanAmount", BigDecimal.valueOf(10_000 + random.nextInt(490_000)))
+                .put("interestRate", BigDecimal.valueOf(500 + random.nextInt(700), 2))
+                .put("tenureMonths", 12 * (1 + random.nextInt(20)));
+    }
+
+    private void remember(long userId, long loanId) {
+        loansByUser.computeIfAbsent(userId, id -> Collections.synchronizedList(new ArrayList<>())).add(loanId);
+    }
+
+    private long loanOf(long userId, Random random) {
+        // Every user has at least the seeded loan
+        List<Long> loans = loansByUser.get(userId);
+        synchronized (loans) {
+            return loans.get(random.nextInt(loans.size()));
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private long awaitOutboxDrained() throws InterruptedException {
+        long began = System.nanoTime();
+        long deadline = began + Duration.ofMinutes(2).toNanos();
+        Long pending;
+        while ((pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_outbox", Long.class)) > 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(0L, pending, "Outbox events were not published to the embedded broker");
+        return (System.nanoTime() - began) / 1_000_000;
+    }
+
+    private LoadReport report(LoanWorkload workload, Map<Operation, LoadReport.Recorder> recorders,
+                              OffsetDateTime startedAt, long elapsedMs, long drainMs) {
+        Map<String, LoadReport.OperationReport> operations = new LinkedHashMap<>();
+        long requests = 0;
+        long errors = 0;
+        for (Map.Entry<Operation, LoadReport.Recorder> entry : recorders.entrySet()) {
+            LoadReport.OperationReport operation = entry.getValue().report(elapsedMs);
+            operations.put(entry.getKey().name().toLowerCase(Locale.ROOT), operation);
+            requests += operation.getRequests();
+            errors += operation.getErrors();
+        }
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        workload.getMix().forEach((operation, weight) -> weights.put(operation.name().toLowerCase(Locale.ROOT), weight));
+        return LoadReport.builder()
+                .label(label)
+                .startedAt(startedAt.toString())
+                .durationMs(elapsedMs)
+                .concurrency(concurrency)
+                .targetRate(rate)
+                .users(users)
+                .skew(skew)
+                .mix(weights)
+                .requests(requests)
+                .throughput(requests * 1000.0 / Math.max(elapsedMs, 1))
+                .errorRate(requests == 0 ? 0 : (double) errors / requests)
+                .outboxDrainMs(drainMs)
+                .operations(operations)
+                .build();
+    }
+
+    private Path write(LoadReport report) throws IOException {
+        Path directory = Path.of(reportDir);
+        Files.createDirectories(directory);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve(label + "-" + stamp + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private void print(LoadReport report, Path file) throws IOException {
+        LoadReport previous = baseline.isBlank() ? null : objectMapper.readValue(Path.of(baseline).toFile(), LoadReport.class);
+        System.out.printf("%nLoad test '%s': %d requests in %d ms, %.0f req/s, error rate %.4f, outbox drained in %d ms%n",
+                report.getLabel(), report.getRequests(), report.getDurationMs(), report.getThroughput(),
+                report.getErrorRate(), report.getOutboxDrainMs());
+        System.out.printf("%-8s %9s %9s %9s %9s %9s %9s %7s%s%n", "op", "requests", "req/s", "p50 ms", "p90 ms",
+                "p99 ms", "p99.9 ms", "errors", previous == null ? "" : "   vs " + previous.getLabel());
+        report.getOperations().forEach((name, operation) -> {
+            String comparison = "";
+            LoadReport.OperationReport before = previous == null ? null : previous.getOperations().get(name);
+            if (before != null) {
+                comparison = String.format("   req/s %+.1f%%, p99 %+.1f%%",
+                        change(before.getThroughput(), operation.getThroughput()),
+                        change(before.getP99Ms(), operation.getP99Ms()));
+            }
+            System.out.printf("%-8s %9d %9.0f %9.2f %9.2f %9.2f %9.2f %7d%s%n", name, operation.getRequests(),
+                    operation.getThroughput(), operation.getP50Ms(), operation.getP90Ms(), operation.getP99Ms(),
+                    operation.getP999Ms(), operation.getErrors(), comparison);
+        });
+        System.out.println("Report written to " + file);
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
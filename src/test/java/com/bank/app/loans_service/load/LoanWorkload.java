@@ -0,0 +1,98 @@
+package com.bank.app.loans_service.load;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The request mix driven by {@link LoanLoadTest}: which operation runs next and for which user.
+ * Users are drawn from a Zipf distribution over ids 1..users, so a few low ids get most of the
+ * traffic and contend on the same loans and cache entries, the way busy customers do in production.
+ */
+final class LoanWorkload {
+
+    enum Operation { ISSUE, REPAY, STATUS, UPDATE, LOOKUP }
+
+    private final Map<Operation, Integer> mix;
+    private final Operation[] operations;
+    private final double[] operationCdf;
+    private final double[] userCdf;
+
+    /**
+     * @param mix Relative weight of each operation; missing operations are not run.
+     * @param users How many distinct users the load is spread over.
+     * @param skew The Zipf exponent; 0 spreads load evenly, around 1 resembles real traffic.
+     */
+    LoanWorkload(Map<Operation, Integer> mix, int users, double skew) {
+        if (users <= 0 || skew < 0) {
+            throw new IllegalArgumentException("users must be positive and skew not negative");
+        }
+        this.mix = new EnumMap<>(mix);
+        this.operations = this.mix.keySet().toArray(Operation[]::new);
+        this.operationCdf = cumulative(Arrays.stream(operations).mapToDouble(this.mix::get).toArray());
+        double[] weights = new double[users];
+        for (int rank = 1; rank <= users; rank++) {
+            weights[rank - 1] = 1 / Math.pow(rank, skew);
+        }
+        this.userCdf = cumulative(weights);
+    }
+
+    /**
+     * Parse a mix such as {@code issue=10,repay=30,lookup=60}.
+     * @param mix Comma separated operation=weight pairs, operation names in any case.
+     * @return The weights by operation.
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got '" + pair + "'");
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight of " + parts[0] + " is negative");
+            }
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix runs no operation");
+        }
+        return weights;
+    }
+
+    Map<Operation, Integer> getMix() {
+        return mix;
+    }
+
+    Operation nextOperation(Random random) {
+        return operations[pick(operationCdf, random)];
+    }
+
+    long nextUser(Random random) {
+        return pick(userCdf, random) + 1;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cdf[i] = total;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        index = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(index, cdf.length - 1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.app.loans_service.load;
+
+import com.bank.app.loans_service.load.LoanWorkload.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanWorkloadTest {
+
+    private static final int DRAWS = 100_000;
+
+    @Test
+    void operationsFollowTheMix() {
+        LoanWorkload workload = new LoanWorkload(LoanWorkload.parseMix("Repay=30, lookup=70, status=0"), 10, 0);
+        Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        Random random = new Random(1);
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(workload.nextOperation(random), 1, Integer::sum);
+        }
+
+        assertEquals(Map.of(Operation.REPAY, 30, Operation.LOOKUP, 70), workload.getMix());
+        assertEquals(0.3, counts.get(Operation.REPAY) / (double) DRAWS, 0.01);
+        assertEquals(0.7, counts.get(Operation.LOOKUP) / (double) DRAWS, 0.01);
+    }
+
+    @Test
+    void skewConcentratesLoadOnFewUsers() {
+        int[] uniform = drawUsers(0);
+        int[] skewed = drawUsers(1.0);
+
+        // With 1000 users and skew 1 the first ten users get about 39% of the load
+        assertEquals(0.01, share(uniform, 10), 0.005);
+        assertEquals(0.39, share(skewed, 10), 0.02);
+        assertTrue(skewed[1] > skewed[2] && skewed[2] > skewed[100]);
+        assertEquals(0, skewed[0]);
+    }
+
+    @Test
+    void rejectsMalformedMixes() {
+        assertThrows(IllegalArgumentException.class, () -> LoanWorkload.parseMix("repay"));
+        assertThrows(IllegalArgumentException.class, () -> LoanWorkload.parseMix("refund=10"));
+        assertThrows(IllegalArgumentException.class, () -> LoanWorkload.parseMix("repay=-1"));
+        assertThrows(IllegalArgumentException.class, () -> LoanWorkload.parseMix("repay=0"));
+    }
+
+    private static int[] drawUsers(double skew) {
+        LoanWorkload workload = new LoanWorkload(Map.of(Operation.LOOKUP, 1), 1000, skew);
+        int[] counts = new int[1001];
+        Random random = new Random(7);
+        for (int i = 0; i < DRAWS; i++) {
+            counts[(int) workload.nextUser(random)]++;
+        }
+        return counts;
+    }
+
+    private static double share(int[] counts, int users) {
+        int total = 0;
+        for (int user = 1; user <= users; user++) {
+            total += counts[user];
+        }
+        return total / (double) DRAWS;
+    }
+}
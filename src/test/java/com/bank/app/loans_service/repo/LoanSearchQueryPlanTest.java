@@ -0,0 +1,147 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.dto.LoanSearchCriteria;
+import com.bank.app.loans_service.dto.LoanSummary;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds about a million loans into H2 and checks with EXPLAIN that the SQL the search actually
+ * generates is answered from the composite indexes declared on {@code Loan} rather than a scan.
+ * Criteria literals are inlined so the captured SQL can be explained as is. Seeding takes a while,
+ * so it runs with the load tests: {@code mvn -Pload-test test -Dtest=LoanSearchQueryPlanTest}.
+ */
+@Tag("load")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loansearch;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bank.app.loans_service.repo.LoanSearchQueryPlanTest$RecordingInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LoanSearchQueryPlanTest {
+
+    private static final int SEEDED_ROWS = 1_000_000;
+    private static final int LIMIT = 100;
+
+    @Autowired
+    private LoansRepository loansRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO loans (id, user_id, amount, loan_number, loan_type, interest_rate, tenure_months, " +
+                "start_date, end_date, remaining_balance, loan_status, version) " +
+                "SELECT X, MOD(X, 100000), 10000.00, 'LN' || X, " +
+                "CASE MOD(X, 3) WHEN 0 THEN 'PERSONAL' WHEN 1 THEN 'HOME' ELSE 'AUTO' END, 7.50, 36, " +
+                "DATEADD(DAY, -MOD(X, 3650), DATE '2026-01-01'), DATEADD(DAY, MOD(X, 3650), DATE '2026-01-01'), " +
+                "CASE WHEN MOD(X, 10) = 0 THEN 0 ELSE MOD(X, 10000) END, " +
+                "CASE WHEN MOD(X, 10) = 0 THEN 'C' WHEN MOD(X, 97) = 0 THEN 'D' " +
+                "WHEN MOD(X, 13) = 0 THEN 'O' ELSE 'A' END, 0 " +
+                "FROM SYSTEM_RANGE(1, " + SEEDED_ROWS + ")");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void statusAndEndDateRangeUseStatusEndDateIndex() {
+        String plan = explain(LoanSearchCriteria.builder()
+                .loanStatus(LoanStatus.OVERDUE)
+                .endDateFrom(LocalDate.of(2027, 1, 1))
+                .endDateTo(LocalDate.of(2027, 1, 31))
+                .build());
+        assertTrue(plan.contains("IDX_LOANS_STATUS_END_DATE"), plan);
+    }
+
+    @Test
+    void typeAndStatusUseTypeStatusIndex() {
+        String plan = explain(LoanSearchCriteria.builder().loanType(LoanType.HOME).loanStatus(LoanStatus.DEFAULTED).build());
+        assertTrue(plan.contains("IDX_LOANS_TYPE_STATUS"), plan);
+    }
+
+    @Test
+    void userUsesUserIndex() {
+        String plan = explain(LoanSearchCriteria.builder().userId(42L).minBalance(BigDecimal.ONE).build());
+        assertTrue(plan.contains("IDX_LOANS_USER_ID_ID"), plan);
+    }
+
+    @Test
+    void loanNumberUsesUniqueIndex() {
+        String plan = explain(LoanSearchCriteria.builder().loanNumber("LN424242").build());
+        assertFalse(plan.contains("TABLESCAN"), plan);
+    }
+
+    @Test
+    void dueCountMatchesAFullScan() {
+        LocalDate from = LocalDate.of(2027, 1, 1);
+        LocalDate to = LocalDate.of(2027, 1, 31);
+        long expected = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM loans WHERE loan_status = 'O' AND end_date BETWEEN ? AND ?", Long.class, from, to);
+
+        assertEquals(expected, loansRepository.countByStatusAndEndDateBetween(LoanStatus.OVERDUE, from, to));
+    }
+
+    @Test
+    void keysetPagesDoNotOverlap() {
+        LoanSearchCriteria criteria = LoanSearchCriteria.builder()
+                .loanStatus(LoanStatus.OVERDUE)
+                .endDateFrom(LocalDate.of(2027, 1, 1))
+                .endDateTo(LocalDate.of(2027, 12, 31))
+                .build();
+
+        List<LoanSummary> first = loansRepository.search(criteria, null, LIMIT);
+        List<LoanSummary> second = loansRepository.search(criteria, first.get(LIMIT - 1).getId(), LIMIT);
+
+        assertEquals(LIMIT, first.size());
+        assertEquals(LIMIT, second.size());
+        assertTrue(second.get(0).getId() > first.get(LIMIT - 1).getId());
+        for (LoanSummary loan : second) {
+            assertEquals(LoanStatus.OVERDUE, loan.getLoanStatus());
+            assertFalse(loan.getEndDate().isBefore(criteria.getEndDateFrom()));
+            assertFalse(loan.getEndDate().isAfter(criteria.getEndDateTo()));
+        }
+    }
+
+    private String explain(LoanSearchCriteria criteria) {
+        RecordingInspector.STATEMENTS.clear();
+        loansRepository.search(criteria, null, LIMIT);
+        String sql = RecordingInspector.STATEMENTS.get(RecordingInspector.STATEMENTS.size() - 1);
+        // Only the row limit is still a bind parameter
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql.replace("?", String.valueOf(LIMIT)), String.class);
+        return plan.toUpperCase(Locale.ROOT);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
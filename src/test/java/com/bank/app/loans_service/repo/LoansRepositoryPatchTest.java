@@ -0,0 +1,79 @@
+package com.bank.app.loans_service.repo;
+
+import com.bank.app.loans_service.dto.LoanPatch;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Runs merge patches through the bulk update against H2, including members that clear a column.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:patches;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class LoansRepositoryPatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Autowired
+    private LoansRepository loansRepository;
+
+    @Test
+    void clearsNullMembersAndSetsTheOthers() throws Exception {
+        Loan loan = loansRepository.saveAndFlush(loan());
+
+        int updated = loansRepository.applyPatch(loan.getId(), loan.getVersion(),
+                patch("{\"endDate\": null, \"interestRate\": 7.25, \"loanStatus\": \"OVERDUE\"}"));
+
+        assertEquals(1, updated);
+        Loan patched = loansRepository.findById(loan.getId()).orElseThrow();
+        assertNull(patched.getEndDate());
+        assertEquals(0, new BigDecimal("7.25").compareTo(patched.getInterestRate()));
+        assertEquals(LoanStatus.OVERDUE, patched.getLoanStatus());
+        assertEquals(LocalDate.of(2025, 1, 1), patched.getStartDate());
+        assertEquals(loan.getVersion() + 1, patched.getVersion());
+    }
+
+    @Test
+    void staleVersionUpdatesNothing() throws Exception {
+        Loan loan = loansRepository.saveAndFlush(loan());
+
+        assertEquals(0, loansRepository.applyPatch(loan.getId(), loan.getVersion() + 1, patch("{\"endDate\": null}")));
+
+        Loan unchanged = loansRepository.findById(loan.getId()).orElseThrow();
+        assertEquals(LocalDate.of(2026, 1, 1), unchanged.getEndDate());
+        assertEquals(loan.getVersion(), unchanged.getVersion());
+    }
+
+    private LoanPatch patch(String json) throws Exception {
+        return LoanPatch.fromMergePatch(objectMapper.readTree(json), objectMapper);
+    }
+
+    private static Loan loan() {
+        return Loan.builder()
+                .userId(1L)
+                .loanAmount(new BigDecimal("1000.00"))
+                .loanNumber("LN-PATCH")
+                .loanType(LoanType.PERSONAL)
+                .interestRate(BigDecimal.TEN)
+                .tenureMonths(12)
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2026, 1, 1))
+                .remainingBalance(new BigDecimal("1000.00"))
+                .loanStatus(LoanStatus.ACTIVE)
+                .build();
+    }
+}
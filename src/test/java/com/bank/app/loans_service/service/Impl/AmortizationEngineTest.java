@@ -0,0 +1,92 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.dto.AmortizationSchedule;
+import com.bank.app.loans_service.dto.Installment;
+import com.bank.app.loans_service.entity.AmortizationMethod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationEngineTest {
+
+    private final AmortizationEngine engine = new AmortizationEngine(new SimpleMeterRegistry(), 100);
+
+    @Test
+    void reducingBalanceUsesStandardEmi() {
+        AmortizationSchedule schedule = engine.schedule(new BigDecimal("100000"), new BigDecimal("12"), 12,
+                AmortizationMethod.REDUCING_BALANCE);
+
+        assertEquals(12, schedule.getInstallments().size());
+        assertEquals(new BigDecimal("8884.88"), schedule.getInstallments().get(0).getPayment());
+        assertEquals(new BigDecimal("1000.00"), schedule.getInstallments().get(0).getInterest());
+        assertPrincipalFullyRepaid(schedule);
+    }
+
+    @Test
+    void flatMatchesSimpleInterestOverTheTenure() {
+        AmortizationSchedule schedule = engine.schedule(new BigDecimal("10000"), new BigDecimal("10"), 24,
+                AmortizationMethod.FLAT);
+
+        assertEquals(new BigDecimal("2000.00"), schedule.getTotalInterest());
+        assertEquals(new BigDecimal("12000.00"), schedule.getTotalPayable());
+        assertPrincipalFullyRepaid(schedule);
+    }
+
+    @Test
+    void interestOnlyRepaysPrincipalAtTheEnd() {
+        AmortizationSchedule schedule = engine.schedule(new BigDecimal("50000"), new BigDecimal("6"), 6,
+                AmortizationMethod.INTEREST_ONLY);
+
+        assertEquals(new BigDecimal("250.00"), schedule.getInstallments().get(0).getPayment());
+        assertEquals(new BigDecimal("50250.00"), schedule.getInstallments().get(5).getPayment());
+        assertPrincipalFullyRepaid(schedule);
+    }
+
+    @Test
+    void interestOnAnExactHalfCentRoundsUp() {
+        // 120.00 at 5.75% accrues exactly 0.575 a month, which binary floating point rounds down
+        AmortizationSchedule schedule = engine.schedule(new BigDecimal("120.00"), new BigDecimal("5.75"), 3,
+                AmortizationMethod.INTEREST_ONLY);
+
+        assertEquals(new BigDecimal("0.58"), schedule.getInstallments().get(0).getInterest());
+        assertEquals(58, AmortizationEngine.monthlyInterest(12_000, 57_500));
+        assertEquals(57, AmortizationEngine.monthlyInterest(11_999, 57_500));
+        assertEquals(5_750_000_000_000L, AmortizationEngine.monthlyInterest(1_200_000_000_000_000L, 57_500));
+    }
+
+    @Test
+    void zeroRateSplitsPrincipalEvenly() {
+        AmortizationSchedule schedule = engine.schedule(new BigDecimal("1000"), BigDecimal.ZERO, 3,
+                AmortizationMethod.REDUCING_BALANCE);
+
+        assertEquals(0, schedule.getTotalInterest().signum());
+        assertPrincipalFullyRepaid(schedule);
+    }
+
+    @Test
+    void identicalTermsShareOneScheduleAndTotalsAgree() {
+        AmortizationSchedule first = engine.schedule(new BigDecimal("250000.00"), new BigDecimal("5.5"), 240,
+                AmortizationMethod.REDUCING_BALANCE);
+        AmortizationSchedule second = engine.schedule(new BigDecimal("250000"), new BigDecimal("5.50"), 240,
+                AmortizationMethod.REDUCING_BALANCE);
+
+        assertSame(first, second);
+        assertEquals(first.getTotalPayable(), new AmortizationEngine(new SimpleMeterRegistry(), 100)
+                .totalPayable(new BigDecimal("250000"), new BigDecimal("5.5"), 240, AmortizationMethod.REDUCING_BALANCE));
+    }
+
+    private static void assertPrincipalFullyRepaid(AmortizationSchedule schedule) {
+        BigDecimal principal = BigDecimal.ZERO;
+        BigDecimal interest = BigDecimal.ZERO;
+        for (Installment installment : schedule.getInstallments()) {
+            principal = principal.add(installment.getPrincipal());
+            interest = interest.add(installment.getInterest());
+        }
+        assertEquals(0, schedule.getPrincipal().compareTo(principal));
+        assertEquals(0, schedule.getTotalInterest().compareTo(interest));
+        assertEquals(0, schedule.getInstallments().get(schedule.getTenureMonths() - 1).getClosingBalance().signum());
+    }
+}
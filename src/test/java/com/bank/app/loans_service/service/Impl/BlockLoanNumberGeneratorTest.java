@@ -0,0 +1,81 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.repo.LoanNumberBlockRepository;
+import com.bank.app.loans_service.service.LoanNumbers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:numberblocks;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlockLoanNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 5_000;
+    private static final int BLOCK_SIZE = 100;
+
+    @Autowired
+    private LoanNumberBlockRepository blockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clean() {
+        blockRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCallersAcrossInstancesNeverCollide() throws Exception {
+        // Two generators on one table behave like two replicas racing for blocks, including the
+        // first lease where both try to create the counter row
+        BlockLoanNumberGenerator instanceA = new BlockLoanNumberGenerator(blockRepository, transactionManager, BLOCK_SIZE);
+        BlockLoanNumberGenerator instanceB = new BlockLoanNumberGenerator(blockRepository, transactionManager, BLOCK_SIZE);
+        Set<String> seen = ConcurrentHashMap.newKeySet(THREADS * NUMBERS_PER_THREAD);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            BlockLoanNumberGenerator generator = t % 2 == 0 ? instanceA : instanceB;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                    String loanNumber = generator.nextLoanNumber();
+                    assertTrue(LoanNumbers.isValid(loanNumber), loanNumber);
+                    assertTrue(seen.add(loanNumber), () -> "Duplicate loan number " + loanNumber);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, seen.size());
+        // Each instance leaves at most part of one block unused
+        long leased = blockRepository.findById("loan_number").orElseThrow().getNextValue() - 1;
+        assertTrue(leased <= THREADS * NUMBERS_PER_THREAD + 2L * BLOCK_SIZE, "Leased " + leased);
+    }
+}
@@ -0,0 +1,180 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanAccrualCheckpoint;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.repo.LoanAccrualCheckpointRepository;
+import com.bank.app.loans_service.repo.LoanOutboxRepository;
+import com.bank.app.loans_service.repo.LoansRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Runs the accrual job against H2: how the book is split into partitions, how a rerun resumes from
+ * the checkpoints, and which rows count as written when the driver reports no update counts.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:accrual;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LoanEventProducer.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanAccrualJobRunTest {
+
+    private static final LocalDate RUN_DATE = LocalDate.of(2025, 6, 1);
+
+    @Autowired
+    private LoansRepository loansRepository;
+
+    @Autowired
+    private LoanAccrualCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private LoanOutboxRepository outboxRepository;
+
+    @Autowired
+    private LoanEventProducer loanEventProducer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void clean() {
+        outboxRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        loansRepository.deleteAll();
+    }
+
+    @Test
+    void partitionsCoverEveryOpenLoanOnce() {
+        List<Loan> loans = saveOverdueLoans(10);
+        Loan closed = loansRepository.save(loans.get(0).toBuilder().id(null).version(null)
+                .loanNumber("LN-CLOSED").loanStatus(LoanStatus.CLOSED).build());
+
+        assertEquals(10, job(jdbcTemplate, 3).run(RUN_DATE));
+
+        List<LoanAccrualCheckpoint> checkpoints = checkpointRepository.findByRunDateOrderByPartitionNo(RUN_DATE);
+        assertEquals(3, checkpoints.size());
+        assertEquals(loans.get(0).getId() - 1, checkpoints.get(0).getLowerLoanId());
+        assertEquals(loans.get(9).getId(), checkpoints.get(2).getUpperLoanId());
+        for (int i = 0; i < checkpoints.size(); i++) {
+            assertTrue(checkpoints.get(i).isCompleted());
+            if (i > 0) {
+                assertEquals(checkpoints.get(i - 1).getUpperLoanId(), checkpoints.get(i).getLowerLoanId());
+            }
+        }
+        for (Loan loan : loans) {
+            Loan accrued = loansRepository.findById(loan.getId()).orElseThrow();
+            assertEquals(1L, accrued.getVersion());
+            assertEquals(LoanStatus.OVERDUE, accrued.getLoanStatus());
+            assertEquals(RUN_DATE, accrued.getLastAccrualDate());
+        }
+        assertEquals(0L, loansRepository.findById(closed.getId()).orElseThrow().getVersion());
+        assertEquals(10, outboxRepository.count());
+
+        // Every partition is complete, so a rerun for the same date does nothing
+        assertEquals(0, job(jdbcTemplate, 3).run(RUN_DATE));
+        assertEquals(10, outboxRepository.count());
+    }
+
+    @Test
+    void rerunResumesAfterTheLastCommittedChunk() {
+        List<Loan> loans = saveOverdueLoans(6);
+        // As left by a run that committed the chunks up to the fourth loan and then died
+        checkpointRepository.save(LoanAccrualCheckpoint.builder()
+                .id(RUN_DATE + ":0")
+                .runDate(RUN_DATE)
+                .partitionNo(0)
+                .lowerLoanId(loans.get(0).getId() - 1)
+                .upperLoanId(loans.get(5).getId())
+                .lastLoanId(loans.get(3).getId())
+                .updatedAt(Instant.now())
+                .build());
+
+        assertEquals(2, job(jdbcTemplate, 3).run(RUN_DATE));
+
+        for (int i = 0; i < loans.size(); i++) {
+            assertEquals(i < 4 ? 0L : 1L, loansRepository.findById(loans.get(i).getId()).orElseThrow().getVersion());
+        }
+        assertTrue(checkpointRepository.findById(RUN_DATE + ":0").orElseThrow().isCompleted());
+    }
+
+    @Test
+    void rowChangedConcurrentlyIsNotReportedWhenTheDriverGivesNoUpdateCounts() {
+        List<Loan> loans = saveOverdueLoans(2);
+        Long repaidId = loans.get(0).getId();
+        JdbcTemplate driver = spy(jdbcTemplate);
+        AtomicBoolean repaid = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (repaid.compareAndSet(false, true)) {
+                // A repayment lands between the chunk read and the batched update
+                jdbcTemplate.update("UPDATE loans SET remaining_balance = remaining_balance - 1, version = version + 1 WHERE id = ?", repaidId);
+            }
+            int[] counts = (int[]) invocation.callRealMethod();
+            // As MySQL reports them with rewriteBatchedStatements=true
+            Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+            return counts;
+        }).when(driver).batchUpdate(anyString(), anyList());
+
+        assertEquals(1, job(driver, 1).run(RUN_DATE));
+
+        Loan skipped = loansRepository.findById(repaidId).orElseThrow();
+        assertEquals(LoanStatus.ACTIVE, skipped.getLoanStatus());
+        assertNull(skipped.getLastAccrualDate());
+        assertEquals(LoanStatus.OVERDUE, loansRepository.findById(loans.get(1).getId()).orElseThrow().getLoanStatus());
+        assertEquals(1, outboxRepository.count());
+    }
+
+    private LoanAccrualJob job(JdbcTemplate jdbc, int partitions) {
+        return new LoanAccrualJob(jdbc, checkpointRepository, loanEventProducer, transactionManager, true, partitions, 2, 90);
+    }
+
+    private List<Loan> saveOverdueLoans(int count) {
+        List<Loan> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            loans.add(loansRepository.save(Loan.builder()
+                    .userId(1L)
+                    .loanAmount(new BigDecimal("1000.00"))
+                    .loanNumber("LN-" + i)
+                    .loanType(LoanType.PERSONAL)
+                    .interestRate(BigDecimal.TEN)
+                    .tenureMonths(12)
+                    .startDate(RUN_DATE.minusYears(1).minusDays(10))
+                    .endDate(RUN_DATE.minusDays(10))
+                    .remainingBalance(new BigDecimal("1000.00"))
+                    .loanStatus(LoanStatus.ACTIVE)
+                    .build()));
+        }
+        return loans;
+    }
+}
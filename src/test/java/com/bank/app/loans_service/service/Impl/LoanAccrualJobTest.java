@@ -0,0 +1,63 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanAccrualJobTest {
+
+    private static final LocalDate END_DATE = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void loanWithinTermIsUntouched() {
+        assertNull(LoanAccrualJob.accrue(loan(LoanStatus.ACTIVE, "1000.00", null), END_DATE, 90));
+    }
+
+    @Test
+    void repaidLoanIsUntouched() {
+        assertNull(LoanAccrualJob.accrue(loan(LoanStatus.ACTIVE, "0.00", null), END_DATE.plusDays(10), 90));
+    }
+
+    @Test
+    void unpaidLoanPastEndDateBecomesOverdueAndAccrues() {
+        Loan accrued = LoanAccrualJob.accrue(loan(LoanStatus.ACTIVE, "36500.00", null), END_DATE.plusDays(10), 90);
+
+        assertEquals(LoanStatus.OVERDUE, accrued.getLoanStatus());
+        assertEquals(new BigDecimal("36600.00"), accrued.getRemainingBalance());
+        assertEquals(END_DATE.plusDays(10), accrued.getLastAccrualDate());
+        assertEquals(4L, accrued.getVersion());
+    }
+
+    @Test
+    void accrualResumesFromLastAccrualDate() {
+        Loan accrued = LoanAccrualJob.accrue(loan(LoanStatus.OVERDUE, "36500.00", END_DATE.plusDays(9)), END_DATE.plusDays(10), 90);
+
+        assertEquals(new BigDecimal("36510.00"), accrued.getRemainingBalance());
+        assertNull(LoanAccrualJob.accrue(accrued, END_DATE.plusDays(10), 90));
+    }
+
+    @Test
+    void loanPastDefaultThresholdDefaults() {
+        Loan accrued = LoanAccrualJob.accrue(loan(LoanStatus.OVERDUE, "100.00", END_DATE.plusDays(90)), END_DATE.plusDays(91), 90);
+
+        assertEquals(LoanStatus.DEFAULTED, accrued.getLoanStatus());
+    }
+
+    private static Loan loan(LoanStatus status, String balance, LocalDate lastAccrualDate) {
+        return Loan.builder()
+                .id(1L)
+                .interestRate(BigDecimal.TEN)
+                .startDate(END_DATE.minusYears(1))
+                .endDate(END_DATE)
+                .remainingBalance(new BigDecimal(balance))
+                .loanStatus(status)
+                .lastAccrualDate(lastAccrualDate)
+                .version(3L)
+                .build();
+    }
+}
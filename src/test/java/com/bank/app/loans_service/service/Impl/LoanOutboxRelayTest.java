@@ -0,0 +1,204 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.entity.LoanOutboxEvent;
+import com.bank.app.loans_service.repo.LoanOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+/**
+ * Takes the broker away and brings it back, and checks that the relay keeps events in the outbox,
+ * stops hammering the broker while it is down and then publishes the backlog in order. Also checks
+ * that a loan's events are never published out of order, and that rows are only locked to claim them.
+ */
+class LoanOutboxRelayTest {
+
+    private static final long INITIAL_BACKOFF_MS = 50;
+
+    private final List<LoanOutboxEvent> outbox = new ArrayList<>();
+    private final List<String> published = new ArrayList<>();
+    private final Set<String> rejectedLoans = new HashSet<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoanOutboxRepository repository;
+    private PlatformTransactionManager transactionManager;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private LoanOutboxRelay relay;
+    private boolean brokerUp;
+    private int sendAttempts;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(LoanOutboxRepository.class);
+        when(repository.findClaimable(any(Instant.class), any(Pageable.class))).thenAnswer(invocation -> {
+            Instant now = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return outbox.stream()
+                    .filter(event -> event.getClaimedUntil() == null || event.getClaimedUntil().isBefore(now))
+                    .sorted(Comparator.comparing(LoanOutboxEvent::getId))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            outbox.stream().filter(event -> ids.contains(event.getId()))
+                    .forEach(event -> event.setClaimedUntil(invocation.getArgument(1)));
+            return null;
+        }).when(repository).updateClaimedUntil(anyCollection(), any());
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            outbox.removeIf(event -> ids.contains(event.getId()));
+            return null;
+        }).when(repository).deleteAllByIdInBatch(any());
+        when(repository.findFirstEventsElsewhere(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> loanIds = invocation.getArgument(0);
+            Collection<Long> claimedIds = invocation.getArgument(1);
+            Map<Long, Long> first = new TreeMap<>();
+            outbox.stream()
+                    .filter(event -> loanIds.contains(event.getLoanId()) && !claimedIds.contains(event.getId()))
+                    .forEach(event -> first.merge(event.getLoanId(), event.getId(), Math::min));
+            return first.entrySet().stream().map(entry -> new Object[]{entry.getKey(), entry.getValue()}).toList();
+        });
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            sendAttempts++;
+            if (!brokerUp) {
+                throw new TimeoutException("Topic loan-service-topic not present in metadata after 5000 ms.");
+            }
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            if (rejectedLoans.contains(record.key())) {
+                return CompletableFuture.failedFuture(new RecordTooLargeException("The message is too large"));
+            }
+            published.add(record.key());
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        relay = newRelay(2);
+        for (long id = 1; id <= 5; id++) {
+            outbox.add(event(id, id));
+        }
+    }
+
+    @Test
+    void outageKeepsEventsAndBacklogIsPublishedInOrder() throws Exception {
+        relay.relay();
+        assertEquals(1, sendAttempts);
+        assertEquals(5, outbox.size());
+
+        relay.relay();
+        assertEquals(1, sendAttempts, "no sends while backing off");
+        assertEquals(INITIAL_BACKOFF_MS / 1000.0, meterRegistry.get("loan.outbox.relay.backoff.seconds").gauge().value());
+
+        brokerUp = true;
+        Thread.sleep(INITIAL_BACKOFF_MS * 2);
+        relay.relay();
+
+        assertEquals(List.of("1", "2", "3", "4", "5"), published);
+        assertEquals(0, outbox.size());
+        assertEquals(0, meterRegistry.get("loan.outbox.relay.backoff.seconds").gauge().value());
+    }
+
+    @Test
+    void failedEventHoldsBackLaterEventsOfItsLoan() {
+        brokerUp = true;
+        outbox.clear();
+        outbox.addAll(List.of(event(1, 1), event(2, 1), event(3, 2)));
+        rejectedLoans.add("1");
+        LoanOutboxRelay relay = newRelay(10);
+
+        relay.relay();
+        assertEquals(List.of("2"), published);
+        assertEquals(2, sendAttempts, "the second event of loan 1 is not sent after the first failed");
+        assertEquals(2, outbox.size());
+
+        rejectedLoans.clear();
+        assertTrue(outbox.stream().allMatch(event -> event.getClaimedUntil() == null), "unacknowledged events are released");
+
+        rejectedLoans.clear();
+        relay.relay();
+        assertEquals(List.of("2", "1", "1"), published);
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    void loansWithAnEarlierEventHeldByAnotherRelayAreLeftToIt() {
+        brokerUp = true;
+        LoanOutboxEvent heldElsewhere = event(0, 1);
+        heldElsewhere.setClaimedUntil(Instant.now().plusSeconds(60));
+        outbox.add(heldElsewhere);
+
+        relay.relay();
+        assertEquals(List.of("2"), published);
+        assertEquals(5, outbox.size());
+
+        // The other relay publishes its event
+        outbox.remove(heldElsewhere);
+        relay.relay();
+        assertEquals(List.of("2", "1", "3", "4", "5"), published);
+    }
+
+    @Test
+    void eventsOfARelayWhoseClaimRanOutAreTakenOver() {
+        brokerUp = true;
+        outbox.forEach(event -> event.setClaimedUntil(Instant.now().minusSeconds(1)));
+
+        relay.relay();
+        assertEquals(List.of("1", "2", "3", "4", "5"), published);
+    }
+
+    @Test
+    void rowsAreClaimedAndUnlockedBeforeAnythingIsSent() {
+        brokerUp = true;
+
+        newRelay(10).relay();
+
+        InOrder inOrder = inOrder(repository, transactionManager, kafkaTemplate);
+        inOrder.verify(repository).findClaimable(any(Instant.class), any(Pageable.class));
+        inOrder.verify(repository).updateClaimedUntil(anyCollection(), notNull());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(kafkaTemplate, times(5)).send(any(ProducerRecord.class));
+    }
+
+    private LoanOutboxRelay newRelay(int batchSize) {
+        return new LoanOutboxRelay(repository, kafkaTemplate, new ObjectMapper(), transactionManager,
+                meterRegistry, batchSize, 10, 1000, 5000, INITIAL_BACKOFF_MS, 1000);
+    }
+
+    private static LoanOutboxEvent event(long id, long loanId) {
+        return LoanOutboxEvent.builder().id(id).loanId(loanId).eventType("loan_issued").payload("{}")
+                .createdAt(Instant.now()).build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.cache.LoansByUserCache;
+import com.bank.app.loans_service.datasource.ReadYourWritesTracker;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import com.bank.app.loans_service.metrics.LoanMetrics;
+import com.bank.app.loans_service.repo.LoansRepository;
+import com.bank.app.loans_service.service.LoanNumberGenerator;
+import com.bank.app.loans_service.service.RepaymentMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Hammers a single loan with concurrent repayments in both repayment modes and checks that no
+ * update is lost: every repayment either lands exactly once or fails with a conflict, and the
+ * atomic mode never conflicts.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:repayments;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoanEventProducer.class, RepaymentContentionTest.RepaidAmounts.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepaymentContentionTest {
+
+    private static final int THREADS = 8;
+    private static final int REPAYMENTS_PER_THREAD = 50;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000.00");
+
+    @Autowired
+    private LoansRepository loansRepository;
+
+    @Autowired
+    private LoanEventProducer loanEventProducer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RepaidAmounts repaidAmounts;
+
+    @Test
+    void optimisticRepaymentsDoNotLoseUpdates() throws Exception {
+        runContended(RepaymentMode.OPTIMISTIC);
+    }
+
+    @Test
+    void atomicRepaymentsDoNotLoseUpdates() throws Exception {
+        runContended(RepaymentMode.ATOMIC);
+    }
+
+    private void runContended(RepaymentMode mode) throws Exception {
+        LoanServiceImpl loanService = new LoanServiceImpl(loansRepository, loanEventProducer,
+                mock(LoansByUserCache.class), mock(LoanNumberGenerator.class), mock(AmortizationEngine.class),
+                new LoanMetrics(new SimpleMeterRegistry()), mock(ReadYourWritesTracker.class), transactionManager, 500, mode, 50, 1);
+        Loan loan = loansRepository.save(Loan.builder()
+                .userId(1L)
+                .loanAmount(OPENING_BALANCE)
+                .loanNumber("LN-" + mode)
+                .loanType(LoanType.PERSONAL)
+                .interestRate(BigDecimal.TEN)
+                .tenureMonths(12)
+                .remainingBalance(OPENING_BALANCE)
+                .loanStatus(LoanStatus.ACTIVE)
+                .build());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger repaid = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < REPAYMENTS_PER_THREAD; i++) {
+                    try {
+                        loanService.repayLoan(loan.getId(), BigDecimal.ONE);
+                        repaid.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        Loan result = loansRepository.findById(loan.getId()).orElseThrow();
+        assertEquals(0, OPENING_BALANCE.subtract(BigDecimal.valueOf(repaid.get())).compareTo(result.getRemainingBalance()));
+        // Read models apply previous-to-new deltas, so the pre-images must not overlap
+        assertEquals(0, BigDecimal.valueOf(repaid.get()).compareTo(repaidAmounts.total(loan.getId())));
+        assertEquals(THREADS * REPAYMENTS_PER_THREAD, repaid.get() + conflicts.get());
+        if (mode == RepaymentMode.ATOMIC) {
+            assertEquals(0, conflicts.get(), "atomic repayments wait for the row lock instead of conflicting");
+        }
+    }
+
+    /**
+     * Sums the balance decrease reported by each committed repayment event.
+     */
+    static class RepaidAmounts {
+
+        private final Map<Long, BigDecimal> totals = new ConcurrentHashMap<>();
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onLoanChanged(LoanChangedEvent event) {
+            if (event.getPrevious() != null) {
+                BigDecimal decrease = event.getPrevious().getRemainingBalance().subtract(event.getLoan().getRemainingBalance());
+                totals.merge(event.getLoan().getId(), decrease, BigDecimal::add);
+            }
+        }
+
+        BigDecimal total(Long loanId) {
+            return totals.getOrDefault(loanId, BigDecimal.ZERO);
+        }
+    }
+}
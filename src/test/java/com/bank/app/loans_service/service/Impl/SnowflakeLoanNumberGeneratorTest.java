@@ -0,0 +1,92 @@
+package com.bank.app.loans_service.service.Impl;
+
+import com.bank.app.loans_service.service.LoanNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeLoanNumberGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int NUMBERS_PER_THREAD = 250_000;
+
+    @Test
+    void concurrentCallersAcrossNodesNeverCollide() throws Exception {
+        SnowflakeLoanNumberGenerator nodeA = new SnowflakeLoanNumberGenerator(1);
+        SnowflakeLoanNumberGenerator nodeB = new SnowflakeLoanNumberGenerator(2);
+        Set<String> seen = ConcurrentHashMap.newKeySet(THREADS * NUMBERS_PER_THREAD);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SnowflakeLoanNumberGenerator generator = t % 2 == 0 ? nodeA : nodeB;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+                    String loanNumber = generator.nextLoanNumber();
+                    assertTrue(seen.add(loanNumber), () -> "Duplicate loan number " + loanNumber);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        assertEquals(THREADS * NUMBERS_PER_THREAD, seen.size());
+    }
+
+    @Test
+    void staysUniqueWhenTheClockStepsBackwards() {
+        AtomicLong clock = new AtomicLong(SnowflakeLoanNumberGenerator.EPOCH_MILLIS + 10_000);
+        SnowflakeLoanNumberGenerator generator = new SnowflakeLoanNumberGenerator(3, clock::get);
+        Set<Long> ids = new HashSet<>();
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-5_000);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertTrue(ids.add(id));
+            previous = id;
+        }
+    }
+
+    @Test
+    void generatedNumbersCarryAValidCheckDigit() {
+        SnowflakeLoanNumberGenerator generator = new SnowflakeLoanNumberGenerator(5);
+        for (int i = 0; i < 1_000; i++) {
+            String loanNumber = generator.nextLoanNumber();
+            assertTrue(LoanNumbers.isValid(loanNumber), loanNumber);
+        }
+    }
+
+    @Test
+    void checkDigitCatchesSingleDigitTypos() {
+        String loanNumber = LoanNumbers.format(7992739871L, 12);
+        assertTrue(LoanNumbers.isValid(loanNumber));
+        for (int i = 2; i < loanNumber.length(); i++) {
+            char original = loanNumber.charAt(i);
+            char typo = (char) ('0' + (original - '0' + 1) % 10);
+            String mistyped = loanNumber.substring(0, i) + typo + loanNumber.substring(i + 1);
+            assertFalse(LoanNumbers.isValid(mistyped), mistyped);
+        }
+        assertFalse(LoanNumbers.isValid("LN123456789"));
+        assertFalse(LoanNumbers.isValid("XX0000000000"));
+    }
+}
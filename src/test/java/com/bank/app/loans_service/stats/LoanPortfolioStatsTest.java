@@ -0,0 +1,137 @@
+package com.bank.app.loans_service.stats;
+
+import com.bank.app.loans_service.dto.PortfolioStats;
+import com.bank.app.loans_service.entity.Loan;
+import com.bank.app.loans_service.entity.LoanStatus;
+import com.bank.app.loans_service.entity.LoanType;
+import com.bank.app.loans_service.event.LoanChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanPortfolioStatsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LoanPortfolioStats stats = new LoanPortfolioStats(jdbcTemplate, mock(PlatformTransactionManager.class), true);
+
+    @Test
+    void issueRepayAndStatusChangeMoveTheTotals() {
+        Loan issued = loan(1L, 10L, LoanType.HOME, LoanStatus.ACTIVE, "1000.00", TODAY.plusDays(45));
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued", issued, null));
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued",
+                loan(2L, 11L, LoanType.AUTO, LoanStatus.ACTIVE, "500.00", TODAY.plusYears(2)), null));
+
+        Loan repaid = issued.toBuilder().remainingBalance(new BigDecimal("0.00")).build();
+        stats.onLoanChanged(new LoanChangedEvent("loan_repaid", repaid, issued));
+        Loan closed = repaid.toBuilder().loanStatus(LoanStatus.CLOSED).build();
+        stats.onLoanChanged(new LoanChangedEvent("loan_status_updated", closed, repaid));
+
+        PortfolioStats snapshot = stats.snapshot(TODAY);
+        assertEquals(2, snapshot.getTotal().getLoanCount());
+        assertEquals(new BigDecimal("500.00"), snapshot.getTotal().getOutstandingBalance());
+        assertEquals(new BigDecimal("0.00"), snapshot.getByLoanType().get(LoanType.HOME).getOutstandingBalance());
+        assertEquals(1, snapshot.getByStatus().get(LoanStatus.ACTIVE).getLoanCount());
+        assertEquals(1, snapshot.getByStatus().get(LoanStatus.CLOSED).getLoanCount());
+        assertEquals(0L, snapshot.getOpenLoansEndingWithinDays().get(60));
+        assertEquals(new BigDecimal("0.00"), stats.forUser(10L).getOutstandingBalance());
+        assertEquals(new BigDecimal("500.00"), stats.forUser(11L).getOutstandingBalance());
+    }
+
+    @Test
+    void countsOpenLoansNearingTheirEndDate() {
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued", loan(1L, 1L, LoanType.PERSONAL, LoanStatus.ACTIVE, "10.00", TODAY.plusDays(30)), null));
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued", loan(2L, 1L, LoanType.PERSONAL, LoanStatus.ACTIVE, "10.00", TODAY.plusDays(31)), null));
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued", loan(3L, 1L, LoanType.PERSONAL, LoanStatus.ACTIVE, "10.00", TODAY.plusDays(91)), null));
+
+        PortfolioStats snapshot = stats.snapshot(TODAY);
+        assertEquals(1L, snapshot.getOpenLoansEndingWithinDays().get(30));
+        assertEquals(2L, snapshot.getOpenLoansEndingWithinDays().get(60));
+        assertEquals(2L, snapshot.getOpenLoansEndingWithinDays().get(90));
+    }
+
+    @Test
+    void changesCommittedDuringARebuildAreNotLost() {
+        Loan issued = loan(1L, 10L, LoanType.HOME, LoanStatus.ACTIVE, "1000.00", TODAY.plusDays(45));
+        // The database is empty when the rebuild reads it; the loan commits while the queries run
+        doAnswer(invocation -> {
+            stats.onLoanChanged(new LoanChangedEvent("loan_issued", issued, null));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT loan_type"), any(RowCallbackHandler.class));
+
+        stats.reconcile();
+
+        PortfolioStats snapshot = stats.snapshot(TODAY);
+        assertEquals(1, snapshot.getTotal().getLoanCount());
+        assertEquals(new BigDecimal("1000.00"), snapshot.getByLoanType().get(LoanType.HOME).getOutstandingBalance());
+        assertEquals(new BigDecimal("1000.00"), stats.forUser(10L).getOutstandingBalance());
+
+        // Once the rebuild is done changes go straight to the new totals
+        stats.onLoanChanged(new LoanChangedEvent("loan_repaid",
+                issued.toBuilder().remainingBalance(new BigDecimal("400.00")).build(), issued));
+        assertEquals(new BigDecimal("400.00"), stats.snapshot(TODAY).getTotal().getOutstandingBalance());
+    }
+
+    @Test
+    void changeAlreadyInTheSnapshotIsNotCountedTwice() throws Exception {
+        Loan issued = loan(1L, 10L, LoanType.HOME, LoanStatus.ACTIVE, "1000.00", TODAY.plusDays(45)).toBuilder().version(0L).build();
+        // The loan commits before the snapshot starts, but its listener only runs once recording has begun
+        ResultSet byType = mock(ResultSet.class);
+        when(byType.getString(1)).thenReturn("HOME");
+        when(byType.getLong(2)).thenReturn(1L);
+        when(byType.getBigDecimal(3)).thenReturn(new BigDecimal("1000.00"));
+        doAnswer(invocation -> {
+            stats.onLoanChanged(new LoanChangedEvent("loan_issued", issued, null));
+            invocation.<RowCallbackHandler>getArgument(1).processRow(byType);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT loan_type"), any(RowCallbackHandler.class));
+        ResultSet versions = mock(ResultSet.class);
+        when(versions.getLong(anyInt())).thenAnswer(invocation -> invocation.<Integer>getArgument(0) == 1 ? 1L : 0L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(versions);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id, version"), any(RowCallbackHandler.class), any(Object[].class));
+
+        stats.reconcile();
+
+        PortfolioStats snapshot = stats.snapshot(TODAY);
+        assertEquals(1, snapshot.getTotal().getLoanCount());
+        assertEquals(new BigDecimal("1000.00"), snapshot.getTotal().getOutstandingBalance());
+    }
+
+    @Test
+    void usersLeftWithoutLoansAreDropped() {
+        Loan issued = loan(1L, 10L, LoanType.HOME, LoanStatus.ACTIVE, "1000.00", TODAY.plusDays(45));
+        stats.onLoanChanged(new LoanChangedEvent("loan_issued", issued, null));
+        stats.onLoanChanged(new LoanChangedEvent("loan_details_updated", issued.toBuilder().userId(11L).build(), issued));
+
+        assertEquals(1, stats.trackedUsers());
+        assertEquals(0, stats.forUser(10L).getLoanCount());
+        assertEquals(new BigDecimal("1000.00"), stats.forUser(11L).getOutstandingBalance());
+    }
+
+    private static Loan loan(Long id, Long userId, LoanType type, LoanStatus status, String balance, LocalDate endDate) {
+        return Loan.builder()
+                .id(id)
+                .userId(userId)
+                .loanType(type)
+                .loanStatus(status)
+                .remainingBalance(new BigDecimal(balance))
+                .endDate(endDate)
+                .build();
+    }
+}